@@ -0,0 +1,125 @@
+package com.thatmg393.tpa4fabric.gametest;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.UUID;
+
+import com.mojang.authlib.GameProfile;
+import com.thatmg393.tpa4fabric.TPA4Fabric;
+import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.persistence.PlayerPreferenceStore;
+import com.thatmg393.tpa4fabric.tpa.TPAManager;
+import com.thatmg393.tpa4fabric.tpa.request.RequestIndex;
+import com.thatmg393.tpa4fabric.tpa.request.type.RequestType;
+import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+import com.thatmg393.tpa4fabric.tpa.wrapper.result.CommandResult;
+
+import net.fabricmc.fabric.api.entity.FakePlayer;
+import net.fabricmc.fabric.api.gametest.v1.FabricGameTest;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.test.GameTest;
+import net.minecraft.test.GameTestException;
+import net.minecraft.test.TestContext;
+
+/**
+ * Profiles the allocations of the rejections a /tpa spammer runs into: to themselves, to someone who
+ * turned requests off, while on cooldown and to someone who already has a request from them.
+ * Also the checks /tpaaccept and /tpadeny make before they touch a request: an empty inbox,
+ * naming themselves and naming someone who sent nothing. None of them may allocate, measured with the JVM's per-thread allocation counter after a warm up
+ * so the JIT already compiled the path. Runs in its own batch so it does not share config with the load test.
+ */
+public class RequestAllocationTest implements FabricGameTest {
+    private static final int WARMUP_ROUNDS = 200_000;
+    private static final int ROUNDS = Integer.getInteger("tpa4fabric.allocationtest.rounds", 1_000_000);
+    private static final int REJECTIONS_PER_ROUND = 7;
+
+    // the allocation counter itself allocates a little when it is read
+    private static final long TOLERANCE_BYTES = 1024;
+
+    @GameTest(templateName = EMPTY_STRUCTURE, batchId = "allocation")
+    public void rejectedRequestsDoNotAllocate(TestContext context) {
+        ServerWorld world = context.getWorld();
+        TPAManager manager = TPAManager.getInstance();
+
+        String oldCooldown = ModConfigManager.get("tpaCooldown");
+        String oldBurst = ModConfigManager.get("tpaCooldownBurst");
+        ModConfigManager.set("tpaCooldown", "60");
+        ModConfigManager.set("tpaCooldownBurst", "2");
+
+        ServerPlayerEntity[] players = new ServerPlayerEntity[4];
+        for (int i = 0; i < players.length; i++) {
+            String name = "tpaalloc" + i;
+            GameProfile profile = new GameProfile(UUID.nameUUIDFromBytes(("tpa4fabric-allocationtest:" + name).getBytes(StandardCharsets.UTF_8)), name);
+            players[i] = FakePlayer.get(world, profile);
+        }
+
+        TPAPlayerWrapper spammer = manager.getPlayerRegistry().register(players[0]);
+        TPAPlayerWrapper friend = manager.getPlayerRegistry().register(players[1]);
+        TPAPlayerWrapper busy = manager.getPlayerRegistry().register(players[2]);
+        TPAPlayerWrapper exhausted = manager.getPlayerRegistry().register(players[3]);
+
+        try {
+            busy.setAllowTPARequest(false);
+
+            // one of the spammer's two tokens goes to friend, exhausted spends both
+            expect(friend.createNewTPARequest(RequestType.NORMAL, spammer), CommandResult.SUCCESS);
+            expect(friend.createNewTPARequest(RequestType.NORMAL, exhausted), CommandResult.SUCCESS);
+            expect(spammer.createNewTPARequest(RequestType.NORMAL, exhausted), CommandResult.SUCCESS);
+
+            int mismatches = reject(spammer, friend, busy, exhausted, WARMUP_ROUNDS);
+
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long before = threads.getCurrentThreadAllocatedBytes();
+            mismatches += reject(spammer, friend, busy, exhausted, ROUNDS);
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+            TPA4Fabric.LOGGER.info(String.format(Locale.ROOT,
+                "Rejected %d requests, allocated %d bytes (%.4f per request)",
+                ROUNDS * (long) REJECTIONS_PER_ROUND, allocated, allocated / (ROUNDS * (double) REJECTIONS_PER_ROUND)
+            ));
+
+            if (mismatches != 0) throw new GameTestException(mismatches + " rejections returned the wrong result");
+            if (allocated > TOLERANCE_BYTES) throw new GameTestException("Rejected requests allocated " + allocated + " bytes");
+        } finally {
+            busy.setAllowTPARequest(true);
+            for (ServerPlayerEntity player : players) {
+                TPAPlayerWrapper wrapper = manager.getPlayerRegistry().unregister(player.getUuid());
+                if (wrapper == null) continue;
+
+                wrapper.markDisconnected();
+                RequestIndex.getInstance().cancelAll(wrapper);
+                PlayerPreferenceStore.getInstance().release(player.getUuid());
+            }
+
+            ModConfigManager.set("tpaCooldown", oldCooldown);
+            ModConfigManager.set("tpaCooldownBurst", oldBurst);
+        }
+
+        context.complete();
+    }
+
+    /**
+     * @return How many of the rejections did not come back with the expected result.
+     */
+    private static int reject(TPAPlayerWrapper spammer, TPAPlayerWrapper friend, TPAPlayerWrapper busy, TPAPlayerWrapper exhausted, int rounds) {
+        int mismatches = 0;
+        for (int i = 0; i < rounds; i++) {
+            if (spammer.createNewTPARequest(RequestType.NORMAL, spammer) != CommandResult.TPA_SELF) mismatches++;
+            if (busy.createNewTPARequest(RequestType.NORMAL, spammer) != CommandResult.NOT_ALLOWED) mismatches++;
+            if (spammer.createNewTPARequest(RequestType.NORMAL, exhausted) != CommandResult.ON_COOLDOWN) mismatches++;
+            if (friend.createNewTPARequest(RequestType.NORMAL, spammer) != CommandResult.HAS_EXISTING) mismatches++;
+
+            if (busy.checkIncomingTPARequest(null) != CommandResult.EMPTY_REQUESTS) mismatches++;
+            if (friend.checkIncomingTPARequest(friend) != CommandResult.TPA_SELF) mismatches++;
+            if (friend.checkIncomingTPARequest(busy) != CommandResult.NO_REQUEST) mismatches++;
+        }
+
+        return mismatches;
+    }
+
+    private static void expect(CommandResult actual, CommandResult expected) {
+        if (actual != expected) throw new GameTestException("Setup expected " + expected + " but got " + actual);
+    }
+}
@@ -0,0 +1,60 @@
+package com.thatmg393.tpa4fabric.gametest;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.tpa.landing.SafeLandingResolver;
+import com.thatmg393.tpa4fabric.tpa.wrapper.models.Coordinates;
+import com.thatmg393.tpa4fabric.tpa.wrapper.models.TeleportParameters;
+
+import net.fabricmc.fabric.api.gametest.v1.FabricGameTest;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.SnowBlock;
+import net.minecraft.test.GameTest;
+import net.minecraft.test.GameTestException;
+import net.minecraft.test.TestContext;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * A player standing on a partial block has their feet inside it, that spot must still count as safe
+ * and be handed back as is, without a search moving them somewhere else.
+ */
+public class SafeLandingTest implements FabricGameTest {
+    @GameTest(templateName = EMPTY_STRUCTURE, batchId = "landing")
+    public void standingOnPartialBlocksIsSafe(TestContext context) {
+        String oldSafeLanding = ModConfigManager.get("safeLanding");
+        ModConfigManager.set("safeLanding", "true");
+
+        try {
+            expectUnchanged(context, 0, Blocks.STONE_SLAB.getDefaultState(), 0.5);
+            expectUnchanged(context, 1, Blocks.FARMLAND.getDefaultState(), 15 / 16.0);
+            expectUnchanged(context, 2, Blocks.DIRT_PATH.getDefaultState(), 15 / 16.0);
+            expectUnchanged(context, 3, Blocks.SOUL_SAND.getDefaultState(), 14 / 16.0);
+            expectUnchanged(context, 4, Blocks.WHITE_CARPET.getDefaultState(), 1 / 16.0);
+            expectUnchanged(context, 5, Blocks.SNOW.getDefaultState().with(SnowBlock.LAYERS, 3), 4 / 16.0);
+        } finally {
+            ModConfigManager.set("safeLanding", oldSafeLanding);
+        }
+
+        context.complete();
+    }
+
+    /**
+     * Puts {@code partial} on top of stone in column {@code x} and resolves a destination standing on it.
+     */
+    private static void expectUnchanged(TestContext context, int x, BlockState partial, double height) {
+        BlockPos ground = new BlockPos(x, 1, 1);
+        context.setBlockState(ground, Blocks.STONE.getDefaultState());
+        context.setBlockState(ground.up(), partial);
+
+        BlockPos block = context.getAbsolutePos(ground.up());
+        TeleportParameters target = new TeleportParameters(
+            context.getWorld(), new Coordinates(block.getX() + 0.5, block.getY() + height, block.getZ() + 0.5)
+        );
+
+        CompletableFuture<TeleportParameters> landing = SafeLandingResolver.getInstance().resolve(target);
+        if (!landing.isDone() || landing.getNow(null) != target)
+            throw new GameTestException("Standing on " + partial + " was not considered safe");
+    }
+}
@@ -0,0 +1,251 @@
+package com.thatmg393.tpa4fabric.gametest;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+
+import com.mojang.authlib.GameProfile;
+import com.thatmg393.tpa4fabric.TPA4Fabric;
+import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.metrics.Histogram;
+import com.thatmg393.tpa4fabric.metrics.TPAMetrics;
+import com.thatmg393.tpa4fabric.persistence.PlayerPreferenceStore;
+import com.thatmg393.tpa4fabric.tpa.TPAManager;
+import com.thatmg393.tpa4fabric.tpa.request.RequestIndex;
+import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+import com.thatmg393.tpa4fabric.utils.scheduler.ScheduledTask;
+import com.thatmg393.tpa4fabric.utils.scheduler.TickScheduler;
+
+import net.fabricmc.fabric.api.entity.FakePlayer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.gametest.v1.FabricGameTest;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.test.GameTest;
+import net.minecraft.test.GameTestException;
+import net.minecraft.test.TestContext;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Drives thousands of fake players through /tpa, /tpahere, /tpaaccept, /tpadeny and /tpaback storms
+ * and reports tick time, thread count, heap usage and request latency.
+ * <p>
+ * Run it with {@code ./gradlew runGametest}, everything is tunable through system properties:
+ * <ul>
+ * <li>{@code tpa4fabric.loadtest.players} (2000)</li>
+ * <li>{@code tpa4fabric.loadtest.commandsPerTick} (200)</li>
+ * <li>{@code tpa4fabric.loadtest.seconds} (60, at most 540)</li>
+ * <li>{@code tpa4fabric.loadtest.seed} (393), the same seed replays the same storm</li>
+ * <li>{@code tpa4fabric.loadtest.maxP99Mspt} (50), the test fails above it</li>
+ * </ul>
+ * Fake players never join through the network, so they are registered with the TPA directly
+ * and commands go straight to {@link TPAManager}, skipping brigadier's player lookup.
+ * The report is written to {@code loadtest-report.txt} in the run directory.
+ */
+public class TPALoadTest implements FabricGameTest {
+    private static final int PLAYERS = Integer.getInteger("tpa4fabric.loadtest.players", 2000);
+    private static final int COMMANDS_PER_TICK = Integer.getInteger("tpa4fabric.loadtest.commandsPerTick", 200);
+    private static final int STORM_TICKS = Math.min(Integer.getInteger("tpa4fabric.loadtest.seconds", 60), 540) * TickScheduler.TICKS_PER_SECOND;
+    private static final long SEED = Long.getLong("tpa4fabric.loadtest.seed", 393L);
+    private static final double MAX_P99_MSPT = Double.parseDouble(System.getProperty("tpa4fabric.loadtest.maxP99Mspt", "50"));
+
+    private static final int TELEPORT_TIME = 3;
+    private static final int SETTLE_TICKS = (TELEPORT_TIME + 5) * TickScheduler.TICKS_PER_SECOND;
+    private static final int SPACING = 16; // one player per chunk, like a spread out server
+
+    private static final TickSampler SAMPLER = new TickSampler();
+
+    // changed for the run and put back afterwards, ModConfigManager.set saves to the real config file
+    private static final String[] OVERRIDDEN_KEYS = { "tpaCooldown", "tpaHereCooldown", "tpaBackCooldown", "tpaTeleportTime" };
+
+    @GameTest(templateName = EMPTY_STRUCTURE, tickLimit = 20 * 60 * 10)
+    public void commandStorm(TestContext context) {
+        ServerWorld world = context.getWorld();
+        MinecraftServer server = world.getServer();
+        TPAManager manager = TPAManager.getInstance();
+
+        String[] previous = new String[OVERRIDDEN_KEYS.length];
+        for (int i = 0; i < OVERRIDDEN_KEYS.length; i++) previous[i] = ModConfigManager.get(OVERRIDDEN_KEYS[i]);
+
+        // cooldowns would reject nearly everything, the point is to push requests through
+        ModConfigManager.set("tpaCooldown", "0");
+        ModConfigManager.set("tpaHereCooldown", "0");
+        ModConfigManager.set("tpaBackCooldown", "0");
+        ModConfigManager.set("tpaTeleportTime", String.valueOf(TELEPORT_TIME));
+
+        ServerPlayerEntity[] players = spawnPlayers(world, context.getAbsolutePos(BlockPos.ORIGIN));
+        for (ServerPlayerEntity player : players) manager.getPlayerRegistry().register(player);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        int threadsBefore = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+
+        Random random = new Random(SEED);
+        long[] maxHeap = { 0 };
+        SAMPLER.start(STORM_TICKS);
+
+        ScheduledTask storm = TickScheduler.getInstance().scheduleRepeating(1, 1, () -> {
+            for (int i = 0; i < COMMANDS_PER_TICK; i++) issueRandomCommand(manager, players, random);
+
+            if (TickScheduler.getInstance().getCurrentTick() % TickScheduler.TICKS_PER_SECOND == 0)
+                maxHeap[0] = Math.max(maxHeap[0], memory.getHeapMemoryUsage().getUsed());
+        });
+
+        context.waitAndRun(STORM_TICKS, storm::cancel);
+        context.waitAndRun(STORM_TICKS + SETTLE_TICKS, () -> {
+            try {
+                long[] tickNanos = SAMPLER.stop();
+                String report = buildReport(tickNanos, threadsBefore, threads.getPeakThreadCount(), maxHeap[0]);
+
+                cleanup(manager, players);
+                writeReport(server, report);
+
+                double p99Mspt = percentile(tickNanos, 0.99) / 1_000_000.0;
+                if (p99Mspt > MAX_P99_MSPT)
+                    throw new GameTestException("p99 tick time " + p99Mspt + "ms is above the budget of " + MAX_P99_MSPT + "ms");
+
+                context.complete();
+            } finally {
+                for (int i = 0; i < OVERRIDDEN_KEYS.length; i++) ModConfigManager.set(OVERRIDDEN_KEYS[i], previous[i]);
+            }
+        });
+    }
+
+    private static ServerPlayerEntity[] spawnPlayers(ServerWorld world, BlockPos origin) {
+        ServerPlayerEntity[] players = new ServerPlayerEntity[PLAYERS];
+        int side = (int) Math.ceil(Math.sqrt(PLAYERS));
+
+        for (int i = 0; i < PLAYERS; i++) {
+            String name = "tpaload" + i;
+            GameProfile profile = new GameProfile(UUID.nameUUIDFromBytes(("tpa4fabric-loadtest:" + name).getBytes(StandardCharsets.UTF_8)), name);
+
+            FakePlayer player = FakePlayer.get(world, profile);
+            player.refreshPositionAndAngles(
+                origin.getX() + (i % side) * SPACING + 0.5,
+                origin.getY() + 1,
+                origin.getZ() + (i / side) * SPACING + 0.5,
+                0, 0
+            );
+            players[i] = player;
+        }
+
+        return players;
+    }
+
+    private static void issueRandomCommand(TPAManager manager, ServerPlayerEntity[] players, Random random) {
+        ServerPlayerEntity executer = players[random.nextInt(players.length)];
+        ServerPlayerEntity target = players[random.nextInt(players.length)];
+
+        int roll = random.nextInt(100);
+        if (roll < 30) manager.tpa(executer, target);
+        else if (roll < 40) manager.tpahere(executer, List.of(target), null);
+        else if (roll < 70) manager.tpaaccept(executer, null);
+        else if (roll < 85) manager.tpadeny(executer, null);
+        else manager.tpaback(executer);
+    }
+
+    private static void cleanup(TPAManager manager, ServerPlayerEntity[] players) {
+        for (ServerPlayerEntity player : players) {
+            TPAPlayerWrapper wrapper = manager.getPlayerRegistry().unregister(player.getUuid());
+            if (wrapper == null) continue;
+
+            wrapper.markDisconnected();
+            RequestIndex.getInstance().cancelAll(wrapper);
+            PlayerPreferenceStore.getInstance().release(player.getUuid());
+        }
+    }
+
+    private static String buildReport(long[] tickNanos, int threadsBefore, int peakThreads, long maxHeapBytes) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT,
+            "players=%d commandsPerTick=%d stormTicks=%d seed=%d%n",
+            PLAYERS, COMMANDS_PER_TICK, STORM_TICKS, SEED
+        ));
+        out.append(String.format(Locale.ROOT,
+            "mspt avg=%.3f p50=%.3f p99=%.3f max=%.3f%n",
+            average(tickNanos) / 1e6, percentile(tickNanos, 0.5) / 1e6, percentile(tickNanos, 0.99) / 1e6, percentile(tickNanos, 1) / 1e6
+        ));
+        out.append(String.format(Locale.ROOT, "threads before=%d peak=%d%n", threadsBefore, peakThreads));
+        out.append(String.format(Locale.ROOT, "heap maxUsed=%dMiB%n", maxHeapBytes / (1024 * 1024)));
+
+        appendLatency(out, "accept_to_teleport", TPAMetrics.ACCEPT_TO_TELEPORT);
+        appendLatency(out, "warmup_to_teleport", TPAMetrics.WARMUP_TO_TELEPORT);
+        appendLatency(out, "teleport_call", TPAMetrics.TELEPORT_CALL);
+        for (TPAMetrics.Command command : TPAMetrics.Command.values())
+            appendLatency(out, "command_" + command.name().toLowerCase(Locale.ROOT), command.getDuration());
+
+        out.append(System.lineSeparator()).append(TPAMetrics.getInstance().render());
+        return out.toString();
+    }
+
+    private static void appendLatency(StringBuilder out, String name, Histogram histogram) {
+        out.append(String.format(Locale.ROOT,
+            "latency %s count=%d p50<=%.3fms p99<=%.3fms%n",
+            name, histogram.getCount(), histogram.getQuantileNanos(0.5) / 1e6, histogram.getQuantileNanos(0.99) / 1e6
+        ));
+    }
+
+    private static void writeReport(MinecraftServer server, String report) {
+        TPA4Fabric.LOGGER.info("Load test finished:" + System.lineSeparator() + report);
+
+        Path path = server.getRunDirectory().resolve("loadtest-report.txt");
+        try {
+            Files.writeString(path, report, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            TPA4Fabric.LOGGER.error("Failed to write the load test report! " + e.toString());
+        }
+    }
+
+    private static double average(long[] values) {
+        return values.length == 0 ? 0 : Arrays.stream(values).average().orElse(0);
+    }
+
+    private static long percentile(long[] values, double quantile) {
+        if (values.length == 0) return 0;
+
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * Measures the work done in each server tick, from its start to its end, without the sleep in between.
+     */
+    private static class TickSampler {
+        private long[] samples = new long[0];
+        private int count = 0;
+        private long tickStart = 0;
+        private boolean running = false;
+
+        private TickSampler() {
+            ServerTickEvents.START_SERVER_TICK.register(server -> tickStart = System.nanoTime());
+            ServerTickEvents.END_SERVER_TICK.register(server -> {
+                if (running && count < samples.length) samples[count++] = System.nanoTime() - tickStart;
+            });
+        }
+
+        void start(int ticks) {
+            samples = new long[ticks];
+            count = 0;
+            running = true;
+        }
+
+        long[] stop() {
+            running = false;
+            return Arrays.copyOf(samples, count);
+        }
+    }
+}
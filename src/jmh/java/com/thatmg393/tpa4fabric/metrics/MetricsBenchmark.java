@@ -0,0 +1,44 @@
+package com.thatmg393.tpa4fabric.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * The cost instrumentation adds to every command and teleport, alone and with several threads hitting one metric.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricsBenchmark {
+    private final Counter counter = new Counter("bench_total", "", "");
+    private final Histogram histogram = new Histogram("bench_seconds", "", "");
+
+    @Benchmark
+    public void counter() {
+        counter.increment();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void counterContended() {
+        counter.increment();
+    }
+
+    @Benchmark
+    public void histogram() {
+        histogram.record(System.nanoTime() & 0xFFFFFF);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void histogramContended() {
+        histogram.record(System.nanoTime() & 0xFFFFFF);
+    }
+}
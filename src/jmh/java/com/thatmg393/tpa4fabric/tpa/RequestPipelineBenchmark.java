@@ -0,0 +1,78 @@
+package com.thatmg393.tpa4fabric.tpa;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.tpa.cooldown.CooldownType;
+import com.thatmg393.tpa4fabric.tpa.request.type.RequestType;
+import com.thatmg393.tpa4fabric.tpa.wrapper.StubPlayer;
+import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+import com.thatmg393.tpa4fabric.tpa.wrapper.result.CommandResult;
+
+/**
+ * The request commands between two {@link StubPlayer}s, from the lookups to the messages.
+ * Accepting starts a warmup that preloads a chunk, that needs a world and is left to the load gametest,
+ * only the ways {@code /tpaaccept} turns a player down are measured here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RequestPipelineBenchmark {
+    private final TPAManager manager = TPAManager.getInstance();
+
+    private TPAPlayerWrapper requester;
+    private TPAPlayerWrapper receiver;
+
+    @Setup
+    public void setup() {
+        // nothing here should be journaled or wait out a cooldown between invocations
+        ModConfigManager.set("audit", "false");
+        ModConfigManager.set("tpaCooldown", "0");
+
+        requester = new StubPlayer("Requester");
+        receiver = new StubPlayer("Receiver");
+    }
+
+    /** A request created and taken back out of the inbox, without the command around it. */
+    @Benchmark
+    public boolean createAndDeny() {
+        CommandResult result = receiver.createNewTPARequest(RequestType.NORMAL, requester);
+        return result == CommandResult.SUCCESS && receiver.denyTPARequest(requester).getState().isTerminal();
+    }
+
+    /** {@code /tpa} then {@code /tpadeny}, with metrics and messages. */
+    @Benchmark
+    public int tpaThenDeny() {
+        return manager.tpa(requester, receiver) + manager.tpadeny(receiver, null);
+    }
+
+    /** {@code /tpaaccept} with nothing in the inbox. */
+    @Benchmark
+    public int acceptEmptyInbox() {
+        return manager.tpaaccept(receiver, null);
+    }
+
+    /** {@code /tpaaccept <name>} naming someone who sent nothing. */
+    @Benchmark
+    public int acceptUnknownName() {
+        manager.tpa(requester, receiver);
+        int result = manager.tpaaccept(receiver, "Nobody");
+        manager.tpadeny(receiver, null);
+
+        return result;
+    }
+
+    /** What every {@code /tpa} asks first. */
+    @Benchmark
+    public long cooldownCheck() {
+        return requester.getCooldownRemainingTicks(CooldownType.TPA);
+    }
+}
@@ -0,0 +1,52 @@
+package com.thatmg393.tpa4fabric.tpa.cooldown;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The cooldown check every /tpa, /tpahere and /tpaback goes through.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TokenBucketBenchmark {
+    private static final int BURST = 3;
+    private static final long REFILL_TICKS = 100;
+
+    private final TokenBucket empty = new TokenBucket();
+    private final TokenBucket refilling = new TokenBucket();
+    private long now;
+
+    @Setup
+    public void setup() {
+        empty.restore(0, 0);
+        refilling.restore(0, 0);
+        now = 0;
+    }
+
+    /** A spammer on cooldown, the common case under abuse. */
+    @Benchmark
+    public boolean rejectOnCooldown() {
+        return empty.tryConsume(1, BURST, REFILL_TICKS);
+    }
+
+    /** What the failure message asks for right after a rejection. */
+    @Benchmark
+    public long remainingTicks() {
+        return empty.getRemainingTicks(1, BURST, REFILL_TICKS);
+    }
+
+    /** A player using the command exactly as often as it refills. */
+    @Benchmark
+    public boolean consumeAfterRefill() {
+        now += REFILL_TICKS;
+        return refilling.tryConsume(now, BURST, REFILL_TICKS);
+    }
+}
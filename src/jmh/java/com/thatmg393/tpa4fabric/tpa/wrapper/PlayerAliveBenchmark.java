@@ -0,0 +1,39 @@
+package com.thatmg393.tpa4fabric.tpa.wrapper;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link TPAPlayerWrapper#isAlive()}, checked by every warmup member each second and by the teleport queue every tick.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlayerAliveBenchmark {
+    private TPAPlayerWrapper online;
+    private TPAPlayerWrapper disconnected;
+
+    @Setup
+    public void setup() {
+        online = new StubPlayer("Online");
+        disconnected = new StubPlayer("Disconnected");
+        disconnected.markDisconnected();
+    }
+
+    @Benchmark
+    public boolean online() {
+        return online.isAlive();
+    }
+
+    @Benchmark
+    public boolean disconnected() {
+        return disconnected.isAlive();
+    }
+}
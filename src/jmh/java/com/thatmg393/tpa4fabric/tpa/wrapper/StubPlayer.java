@@ -0,0 +1,33 @@
+package com.thatmg393.tpa4fabric.tpa.wrapper;
+
+import java.util.UUID;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.text.MutableText;
+import net.minecraft.text.Text;
+
+/**
+ * A {@link TPAPlayerWrapper} with nobody behind it, messages go nowhere.
+ * Good for anything up to the point a request needs a world.
+ */
+public class StubPlayer extends TPAPlayerWrapper {
+    public StubPlayer(String name) {
+        super(name, UUID.nameUUIDFromBytes(name.getBytes()));
+    }
+
+    @Override
+    public void sendMessage(MutableText message) { }
+
+    @Override
+    public void sendActionBar(Text message) { }
+
+    @Override
+    public int getPermissionLevel() {
+        return 0;
+    }
+
+    @Override
+    public boolean isSamePlayer(Entity entity) {
+        return false;
+    }
+}
@@ -0,0 +1,48 @@
+package com.thatmg393.tpa4fabric.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.thatmg393.tpa4fabric.config.ModConfigManager;
+
+import net.minecraft.text.MutableText;
+
+/**
+ * {@link MCTextUtils#fromLang} as the commands call it: the template lookup, the config read and the formatting.
+ * Only the first call compiles a template, so this is the cost of every message after it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MCTextUtilsBenchmark {
+    @Param({ "false", "true" })
+    public boolean clientSideTranslation;
+
+    @Setup
+    public void setup() {
+        ModConfigManager.set("clientSideTranslation", String.valueOf(clientSideTranslation));
+    }
+
+    @Benchmark
+    public MutableText constant() {
+        return MCTextUtils.fromLang("tpa4fabric.message.teleport.success");
+    }
+
+    @Benchmark
+    public MutableText oneArgument() {
+        return MCTextUtils.fromLang("tpa4fabric.message.receiver.tpa", "ThatMG393");
+    }
+
+    @Benchmark
+    public MutableText twoArguments() {
+        return MCTextUtils.fromLang("tpa4fabric.message.config.set", "tpaCooldown", 5);
+    }
+}
@@ -0,0 +1,56 @@
+package com.thatmg393.tpa4fabric.utils.scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The scheduler every request timer, warmup and countdown runs on.
+ * Every trial gets its own scheduler that no server tick is hooked to, ticks are driven through {@link TickScheduler#advance()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TickSchedulerBenchmark {
+    private static final Runnable NOOP = () -> { };
+
+    /** Tasks kept pending at all times, about one per request on a busy server. */
+    @Param({ "100", "10000" })
+    public int pending;
+
+    private TickScheduler scheduler;
+
+    @Setup
+    public void setup() {
+        scheduler = new TickScheduler(false);
+
+        // spread like expiry timers (2400 ticks) and 1s warmup ticks, so every level of the wheel is used
+        for (int i = 0; i < pending; i++) {
+            if ((i & 1) == 0) scheduler.scheduleRepeating(1 + i % 2400, 2400, NOOP);
+            else scheduler.scheduleRepeating(1 + i % 20, 20, NOOP);
+        }
+    }
+
+    /** A request created and answered before it expires. */
+    @Benchmark
+    public ScheduledTask scheduleThenCancel() {
+        ScheduledTask task = scheduler.schedule(2400, NOOP);
+        task.cancel();
+
+        return task;
+    }
+
+    /** One server tick worth of scheduler work. */
+    @Benchmark
+    public long tick() {
+        scheduler.advance();
+        return scheduler.getCurrentTick();
+    }
+}
@@ -7,12 +7,26 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.mojang.brigadier.arguments.BoolArgumentType;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.thatmg393.tpa4fabric.audit.AuditJournal;
 import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.metrics.TPAMetrics;
+import com.thatmg393.tpa4fabric.persistence.DataStorage;
+import com.thatmg393.tpa4fabric.persistence.PlayerPreferenceStore;
 import com.thatmg393.tpa4fabric.tpa.TPAManager;
+import com.thatmg393.tpa4fabric.tpa.chunk.ChunkPreloader;
+import com.thatmg393.tpa4fabric.tpa.landing.SafeLandingResolver;
+import com.thatmg393.tpa4fabric.tpa.request.RequestIndex;
+import com.thatmg393.tpa4fabric.tpa.teleport.TeleportExecutor;
+import com.thatmg393.tpa4fabric.tpa.watcher.MovementWatcher;
+import com.thatmg393.tpa4fabric.tpa.waypoint.WaypointManager;
+import com.thatmg393.tpa4fabric.utils.scheduler.TickScheduler;
 
 import net.fabricmc.api.DedicatedServerModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
 import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.command.CommandSource;
 import net.minecraft.command.argument.EntityArgumentType;
 import net.minecraft.server.command.ServerCommandSource;
 
@@ -25,13 +39,25 @@ public class TPA4Fabric implements DedicatedServerModInitializer {
 		LOGGER.info("Using TPA4Fabric " + FabricLoader.getInstance().getModContainer(MOD_ID).get().getMetadata().getVersion().getFriendlyString());
 		LOGGER.info("Loading config...");
 		ModConfigManager.loadOrGetConfig();
+		ModConfigManager.startWatching();
 		LOGGER.info("Loaded!");
 
 		LOGGER.info("Registering TPA4Fabric commands...");
 		registerCommands();
 		LOGGER.info("Registered, have fun!");
 
+		TickScheduler.getInstance(); // Hooks into the server tick
+		DataStorage.getInstance();
+		PlayerPreferenceStore.getInstance();
+		MovementWatcher.getInstance();
+		ChunkPreloader.getInstance();
+		TeleportExecutor.getInstance();
+		SafeLandingResolver.getInstance();
+		RequestIndex.getInstance();
 		TPAManager.getInstance(); // Triggers the auto class init
+		TPAMetrics.getInstance();
+		AuditJournal.getInstance();
+		WaypointManager.getInstance();
 	}
 
 	private void registerCommands() {
@@ -41,6 +67,7 @@ public class TPA4Fabric implements DedicatedServerModInitializer {
 				.requires(ServerCommandSource::isExecutedByPlayer)
 				.then(
 					argument("to", EntityArgumentType.player())
+					.suggests((ctx, builder) -> TPAManager.getInstance().suggestTPATargets(ctx.getSource().getPlayer(), builder))
 				    .executes(ctx -> TPAManager.getInstance().tpa(ctx.getSource().getPlayer(), EntityArgumentType.getPlayer(ctx, "to")))				)
 			);
 
@@ -54,8 +81,9 @@ public class TPA4Fabric implements DedicatedServerModInitializer {
 				literal("tpaaccept")
 				.requires(ServerCommandSource::isExecutedByPlayer)
 				.then(
-					argument("from", EntityArgumentType.player())
-				    .executes(ctx -> TPAManager.getInstance().tpaaccept(ctx.getSource().getPlayer(), EntityArgumentType.getPlayer(ctx, "from")))
+					argument("from", StringArgumentType.word())
+					.suggests((ctx, builder) -> RequestIndex.getInstance().suggestIncoming(ctx.getSource().getPlayer().getUuid(), builder))
+					.executes(ctx -> TPAManager.getInstance().tpaaccept(ctx.getSource().getPlayer(), StringArgumentType.getString(ctx, "from")))
 				)
 				.executes(ctx -> TPAManager.getInstance().tpaaccept(ctx.getSource().getPlayer(), null))
 			);
@@ -64,8 +92,9 @@ public class TPA4Fabric implements DedicatedServerModInitializer {
 				literal("tpadeny")
 				.requires(ServerCommandSource::isExecutedByPlayer)
 				.then(
-					argument("from", EntityArgumentType.player())
-					.executes(ctx -> TPAManager.getInstance().tpadeny(ctx.getSource().getPlayer(), EntityArgumentType.getPlayer(ctx, "from")))
+					argument("from", StringArgumentType.word())
+					.suggests((ctx, builder) -> RequestIndex.getInstance().suggestIncoming(ctx.getSource().getPlayer().getUuid(), builder))
+					.executes(ctx -> TPAManager.getInstance().tpadeny(ctx.getSource().getPlayer(), StringArgumentType.getString(ctx, "from")))
 				)
 				.executes(ctx -> TPAManager.getInstance().tpadeny(ctx.getSource().getPlayer(), null))
 			);
@@ -80,30 +109,142 @@ public class TPA4Fabric implements DedicatedServerModInitializer {
 				.executes(ctx -> TPAManager.getInstance().tpaallow(ctx.getSource().getPlayer()))
 			);
 
-			/*
+			dispatcher.register(
+				literal("tpaaudit")
+				.requires(src -> src.hasPermissionLevel(4))
+				.then(
+					argument("player", StringArgumentType.word())
+					.suggests((ctx, builder) -> CommandSource.suggestMatching(ctx.getSource().getPlayerNames(), builder))
+					.executes(ctx -> TPAManager.getInstance().tpaaudit(ctx.getSource(), StringArgumentType.getString(ctx, "player"), 10))
+					.then(
+						argument("count", IntegerArgumentType.integer(1, 50))
+						.executes(ctx -> TPAManager.getInstance().tpaaudit(
+							ctx.getSource(),
+							StringArgumentType.getString(ctx, "player"),
+							IntegerArgumentType.getInteger(ctx, "count")
+						))
+					)
+				)
+			);
+
+			dispatcher.register(
+				literal("tpametrics")
+				.requires(src -> src.hasPermissionLevel(4))
+				.executes(ctx -> TPAManager.getInstance().tpametrics(ctx.getSource()))
+			);
+
+			// Selectors need permission level 2, everyone else can list more names after the first one
 			dispatcher.register(
 				literal("tpahere")
 				.requires(ServerCommandSource::isExecutedByPlayer)
 				.then(
-					argument("player", EntityArgumentType.player())
-					.executes(ctx -> TPAManager.getInstance().allowTPA(ctx.getSource(), BoolArgumentType.getBool(ctx, "allow")))
+					argument("targets", EntityArgumentType.players())
+					.executes(ctx -> TPAManager.getInstance().tpahere(ctx.getSource().getPlayer(), EntityArgumentType.getPlayers(ctx, "targets"), null))
+					.then(
+						argument("more", StringArgumentType.greedyString())
+						.suggests((ctx, builder) -> CommandSource.suggestMatching(ctx.getSource().getPlayerNames(), builder.createOffset(builder.getStart() + builder.getRemaining().lastIndexOf(' ') + 1)))
+						.executes(ctx -> TPAManager.getInstance().tpahere(
+							ctx.getSource().getPlayer(),
+							EntityArgumentType.getPlayers(ctx, "targets"),
+							StringArgumentType.getString(ctx, "more")
+						))
+					)
+				)
+			);
+
+			dispatcher.register(
+				literal("warp")
+				.requires(ServerCommandSource::isExecutedByPlayer)
+				.then(
+					argument("name", StringArgumentType.word())
+					.suggests((ctx, builder) -> WaypointManager.getInstance().getWarps().suggest(builder))
+					.executes(ctx -> TPAManager.getInstance().warp(ctx.getSource().getPlayer(), StringArgumentType.getString(ctx, "name")))
+				)
+			);
+
+			dispatcher.register(
+				literal("setwarp")
+				.requires(src -> src.isExecutedByPlayer() && src.hasPermissionLevel(2))
+				.then(
+					argument("name", StringArgumentType.word())
+					.executes(ctx -> TPAManager.getInstance().setwarp(ctx.getSource().getPlayer(), StringArgumentType.getString(ctx, "name")))
+				)
+			);
+
+			dispatcher.register(
+				literal("delwarp")
+				.requires(src -> src.isExecutedByPlayer() && src.hasPermissionLevel(2))
+				.then(
+					argument("name", StringArgumentType.word())
+					.suggests((ctx, builder) -> WaypointManager.getInstance().getWarps().suggest(builder))
+					.executes(ctx -> TPAManager.getInstance().delwarp(ctx.getSource().getPlayer(), StringArgumentType.getString(ctx, "name")))
+				)
+			);
+
+			// Without a name the home is just called "home"
+			dispatcher.register(
+				literal("home")
+				.requires(ServerCommandSource::isExecutedByPlayer)
+				.then(
+					argument("name", StringArgumentType.word())
+					.suggests((ctx, builder) -> WaypointManager.getInstance().getHomes(ctx.getSource().getPlayer().getUuid()).suggest(builder))
+					.executes(ctx -> TPAManager.getInstance().home(ctx.getSource().getPlayer(), StringArgumentType.getString(ctx, "name")))
 				)
+				.executes(ctx -> TPAManager.getInstance().home(ctx.getSource().getPlayer(), "home"))
+			);
+
+			dispatcher.register(
+				literal("sethome")
+				.requires(ServerCommandSource::isExecutedByPlayer)
+				.then(
+					argument("name", StringArgumentType.word())
+					.executes(ctx -> TPAManager.getInstance().sethome(ctx.getSource().getPlayer(), StringArgumentType.getString(ctx, "name")))
+				)
+				.executes(ctx -> TPAManager.getInstance().sethome(ctx.getSource().getPlayer(), "home"))
+			);
+
+			dispatcher.register(
+				literal("delhome")
+				.requires(ServerCommandSource::isExecutedByPlayer)
+				.then(
+					argument("name", StringArgumentType.word())
+					.suggests((ctx, builder) -> WaypointManager.getInstance().getHomes(ctx.getSource().getPlayer().getUuid()).suggest(builder))
+					.executes(ctx -> TPAManager.getInstance().delhome(ctx.getSource().getPlayer(), StringArgumentType.getString(ctx, "name")))
+				)
+				.executes(ctx -> TPAManager.getInstance().delhome(ctx.getSource().getPlayer(), "home"))
 			);
-			*/
 
-			/*
 			dispatcher.register(
 				literal("tpaconfig")
 				.requires(src -> src.hasPermissionLevel(4))
 				.then(
-					argument("key", StringArgumentType.string())
+					literal("reload")
+					.executes(ctx -> TPAManager.getInstance().tpaconfigReload(ctx.getSource()))
+				)
+				.then(
+					literal("get")
+					.then(
+						argument("key", StringArgumentType.word())
+						.suggests((ctx, builder) -> CommandSource.suggestMatching(ModConfigManager.getKeys(), builder))
+						.executes(ctx -> TPAManager.getInstance().tpaconfigGet(ctx.getSource(), StringArgumentType.getString(ctx, "key")))
+					)
+				)
+				.then(
+					literal("set")
 					.then(
-						argument("value", IntegerArgumentType.integer()) // TODO: Replace IntegerArgumentType to AnyArgumentType
-						.executes(ctx -> 1)
+						argument("key", StringArgumentType.word())
+						.suggests((ctx, builder) -> CommandSource.suggestMatching(ModConfigManager.getKeys(), builder))
+						.then(
+							argument("value", StringArgumentType.word())
+							.executes(ctx -> TPAManager.getInstance().tpaconfigSet(
+								ctx.getSource(),
+								StringArgumentType.getString(ctx, "key"),
+								StringArgumentType.getString(ctx, "value")
+							))
+						)
 					)
 				)
 			);
-			*/
 		});
 	}
 }
@@ -0,0 +1,341 @@
+package com.thatmg393.tpa4fabric.audit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.thatmg393.tpa4fabric.TPA4Fabric;
+import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.config.data.ModConfigData;
+import com.thatmg393.tpa4fabric.metrics.TPAMetrics;
+import com.thatmg393.tpa4fabric.persistence.DataStorage;
+import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.world.World;
+
+/**
+ * Who teleported where, and what happened to every request, as JSON lines in {@code <world>/tpa4fabric/audit/audit.jsonl}.
+ * <p>
+ * The server thread only copies the fields into a preallocated ring buffer, formatting and writing happen on the
+ * {@link DataStorage} thread once per tick that recorded something. A full ring drops the entry and counts it instead
+ * of stalling the tick. The file is rotated to {@code audit.1.jsonl}, {@code audit.2.jsonl}, ... once it reaches
+ * {@code auditMaxFileSize} KiB, at most {@code auditMaxFiles} of them are kept.
+ * <p>
+ * The IO thread also keeps the newest entries of every player in memory for {@link #recent},
+ * seeded from the tail of the current file so a query never reads the whole journal.
+ */
+public class AuditJournal {
+    private static final AuditJournal INSTANCE = new AuditJournal();
+
+    public static AuditJournal getInstance() {
+        return INSTANCE;
+    }
+
+    private static final int CAPACITY = 8192; // a power of two
+    private static final int MASK = CAPACITY - 1;
+
+    private static final int RECENT_PER_PLAYER = 50;
+    private static final int RECENT_PLAYERS = 1024;
+    private static final int INDEX_TAIL_BYTES = 256 * 1024;
+
+    private static final String FILE_NAME = "audit";
+    private static final String FILE_EXTENSION = ".jsonl";
+
+    // single producer, the server thread, single consumer, the IO thread
+    private final Slot[] ring = new Slot[CAPACITY];
+    private final AtomicLong head = new AtomicLong(); // next slot the IO thread reads
+    private final AtomicLong tail = new AtomicLong(); // next slot the server thread fills
+    private final AtomicBoolean drainQueued = new AtomicBoolean(false);
+
+    // IO thread only
+    private Path directory = null;
+    private BufferedWriter writer = null;
+    private long fileSize = 0;
+    private final LinkedHashMap<String, ArrayDeque<AuditRecord>> recent = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ArrayDeque<AuditRecord>> eldest) {
+            return size() > RECENT_PLAYERS;
+        }
+    };
+
+    private AuditJournal() {
+        for (int i = 0; i < CAPACITY; i++) ring[i] = new Slot();
+
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (getBacklog() > 0) queueDrain();
+        });
+        // players are kicked after SERVER_STOPPING, so the last drain waits for the IO thread to stop
+        DataStorage.getInstance().executeOnShutdown(() -> {
+            drain();
+            close();
+        });
+    }
+
+    /**
+     * @see #record(AuditType, AuditOutcome, TPAPlayerWrapper, TPAPlayerWrapper, RegistryKey, double, double, double)
+     */
+    public void record(AuditType type, AuditOutcome outcome, TPAPlayerWrapper player, TPAPlayerWrapper other) {
+        record(type, outcome, player, other, null, 0, 0, 0);
+    }
+
+    /**
+     * Queues an entry for the journal without allocating, call on the server thread.
+     *
+     * @param other The other player involved, {@code null} if there is none.
+     * @param dimension Where it happened, {@code null} if it did not happen at a place.
+     */
+    public void record(AuditType type, AuditOutcome outcome, TPAPlayerWrapper player, TPAPlayerWrapper other, RegistryKey<World> dimension, double x, double y, double z) {
+        record(type, outcome, player.name, player.uuid, other == null ? null : other.name, other == null ? null : other.uuid, dimension, x, y, z);
+    }
+
+    /**
+     * Same as {@link #record(AuditType, AuditOutcome, TPAPlayerWrapper, TPAPlayerWrapper, RegistryKey, double, double, double)},
+     * for when there is no wrapper at hand.
+     */
+    public void record(AuditType type, AuditOutcome outcome, String player, UUID playerUuid, String other, UUID otherUuid, RegistryKey<World> dimension, double x, double y, double z) {
+        if (!ModConfigManager.loadOrGetConfig().audit()) return;
+
+        long slotIndex = tail.get();
+        if (slotIndex - head.get() >= CAPACITY) {
+            TPAMetrics.AUDIT_DROPPED.increment();
+            return;
+        }
+
+        Slot slot = ring[(int) (slotIndex & MASK)];
+        slot.timeMillis = System.currentTimeMillis();
+        slot.type = type;
+        slot.outcome = outcome;
+        slot.player = player;
+        slot.playerUuid = playerUuid;
+        slot.other = other;
+        slot.otherUuid = otherUuid;
+        slot.dimension = dimension;
+        slot.x = x;
+        slot.y = y;
+        slot.z = z;
+
+        tail.lazySet(slotIndex + 1); // publishes the slot to the IO thread
+    }
+
+    /**
+     * @return Entries recorded but not written yet.
+     */
+    public long getBacklog() {
+        return tail.get() - head.get();
+    }
+
+    /**
+     * Looks up the newest entries {@code playerName} was involved in, on the IO thread so it sees everything recorded before.
+     * Only covers what is still in memory, which is at least the tail of the current file.
+     *
+     * @return The entries, newest first, completed on the IO thread.
+     */
+    public CompletableFuture<List<AuditRecord>> recent(String playerName, int limit) {
+        CompletableFuture<List<AuditRecord>> result = new CompletableFuture<>();
+
+        DataStorage.getInstance().execute(() -> {
+            try {
+                drain();
+                ensureOpen();
+
+                ArrayDeque<AuditRecord> records = recent.get(playerName.toLowerCase(Locale.ROOT));
+                if (records == null) {
+                    result.complete(Collections.emptyList());
+                    return;
+                }
+
+                ArrayList<AuditRecord> newest = new ArrayList<>(Math.min(limit, records.size()));
+                Iterator<AuditRecord> iterator = records.descendingIterator();
+                while (iterator.hasNext() && newest.size() < limit) newest.add(iterator.next());
+
+                result.complete(newest);
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+
+        return result;
+    }
+
+    private void queueDrain() {
+        if (!drainQueued.getAndSet(true)) DataStorage.getInstance().execute(this::drain);
+    }
+
+    private void drain() {
+        drainQueued.set(false); // anything recorded from now on queues another drain
+        if (getBacklog() == 0) return;
+
+        boolean open = ensureOpen();
+        ModConfigData config = ModConfigManager.loadOrGetConfig();
+        long maxFileSize = config.auditMaxFileSize() * 1024L;
+
+        long slotIndex = head.get();
+        long end = tail.get();
+        try {
+            for (; slotIndex < end; slotIndex++) {
+                AuditRecord record = ring[(int) (slotIndex & MASK)].toRecord();
+                head.lazySet(slotIndex + 1); // the slot can be reused
+
+                index(record);
+                if (!open) continue;
+
+                String line = record.toJson();
+                writer.write(line);
+                writer.write('\n');
+                fileSize += line.length() + 1; // names, UUIDs and dimensions are ASCII
+                TPAMetrics.AUDIT_WRITTEN.increment();
+
+                if (fileSize >= maxFileSize) {
+                    rotate(config.auditMaxFiles());
+                    open = writer != null;
+                }
+            }
+
+            if (writer != null) writer.flush();
+        } catch (IOException e) {
+            TPA4Fabric.LOGGER.error("Failed to write the audit journal! " + e.toString());
+            head.set(end);
+            closeQuietly();
+        }
+    }
+
+    private void index(AuditRecord record) {
+        index(record.player(), record);
+        if (record.other() != null && !record.other().equalsIgnoreCase(record.player())) index(record.other(), record);
+    }
+
+    private void index(String name, AuditRecord record) {
+        ArrayDeque<AuditRecord> records = recent.computeIfAbsent(name.toLowerCase(Locale.ROOT), n -> new ArrayDeque<>());
+        if (records.size() >= RECENT_PER_PLAYER) records.pollFirst();
+        records.addLast(record);
+    }
+
+    /**
+     * Opens the current file for appending, seeding the in-memory index from its tail the first time.
+     *
+     * @return Whether the file is open.
+     */
+    private boolean ensureOpen() {
+        if (writer != null) return true;
+
+        try {
+            boolean firstOpen = directory == null;
+            directory = DataStorage.getInstance().resolve("audit");
+            Files.createDirectories(directory);
+
+            Path file = file(0);
+            if (firstOpen && Files.exists(file)) loadTail(file);
+
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            fileSize = Files.size(file);
+            return true;
+        } catch (IOException e) {
+            TPA4Fabric.LOGGER.error("Failed to open the audit journal! " + e.toString());
+            closeQuietly();
+            return false;
+        }
+    }
+
+    private void loadTail(Path file) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file.toFile(), "r")) {
+            long start = Math.max(0, input.length() - INDEX_TAIL_BYTES);
+            byte[] bytes = new byte[(int) (input.length() - start)];
+            input.seek(start);
+            input.readFully(bytes);
+
+            String[] lines = new String(bytes, StandardCharsets.UTF_8).split("\n");
+            // the first line is most likely cut in half when reading from the middle
+            for (int i = start > 0 ? 1 : 0; i < lines.length; i++) {
+                if (lines[i].isBlank()) continue;
+
+                try {
+                    index(AuditRecord.fromJson(lines[i]));
+                } catch (RuntimeException e) {
+                    TPA4Fabric.LOGGER.warn("Skipped a malformed audit journal line.");
+                }
+            }
+        }
+    }
+
+    private void rotate(int maxFiles) throws IOException {
+        writer.close();
+        writer = null;
+
+        if (maxFiles < 1) {
+            Files.deleteIfExists(file(0));
+        } else {
+            for (int i = maxFiles - 1; i >= 0; i--) {
+                Path from = file(i);
+                if (Files.exists(from)) Files.move(from, file(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        ensureOpen();
+    }
+
+    private Path file(int generation) {
+        return directory.resolve(generation == 0 ? FILE_NAME + FILE_EXTENSION : FILE_NAME + "." + generation + FILE_EXTENSION);
+    }
+
+    private void close() {
+        closeQuietly();
+
+        // the next server might be another world
+        directory = null;
+        recent.clear();
+    }
+
+    private void closeQuietly() {
+        if (writer == null) return;
+
+        try {
+            writer.close();
+        } catch (IOException e) {
+            TPA4Fabric.LOGGER.error("Failed to close the audit journal! " + e.toString());
+        }
+        writer = null;
+    }
+
+    /**
+     * A reusable copy of one {@link #record} call, so queueing an entry never allocates.
+     */
+    private static class Slot {
+        long timeMillis;
+        AuditType type;
+        AuditOutcome outcome;
+        String player;
+        UUID playerUuid;
+        String other;
+        UUID otherUuid;
+        RegistryKey<World> dimension;
+        double x, y, z;
+
+        AuditRecord toRecord() {
+            return new AuditRecord(
+                timeMillis, type, outcome,
+                player, playerUuid,
+                other, otherUuid,
+                dimension == null ? null : dimension.getValue().toString(), x, y, z
+            );
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.thatmg393.tpa4fabric.audit;
+
+/**
+ * What happened in an {@link AuditRecord}.
+ */
+public enum AuditOutcome {
+    SENT,
+    ACCEPTED,
+    DENIED,
+    EXPIRED,
+    CANCELLED,
+    FAILED,
+    TELEPORTED,
+
+    JOINED,
+    LEFT
+}
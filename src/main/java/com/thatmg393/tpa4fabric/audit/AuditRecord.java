@@ -0,0 +1,116 @@
+package com.thatmg393.tpa4fabric.audit;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.UUID;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * One line of the audit journal, only ever built on the IO thread.
+ *
+ * @param player The requester, or the player who teleported for {@link AuditOutcome#TELEPORTED}.
+ * @param other The other player involved, {@code null} if there is none.
+ * @param dimension Where it happened, {@code null} if it did not happen at a place.
+ */
+public record AuditRecord(
+    long timeMillis,
+    AuditType type,
+    AuditOutcome outcome,
+    String player, UUID playerUuid,
+    String other, UUID otherUuid,
+    String dimension, double x, double y, double z
+) {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.ROOT).withZone(ZoneId.systemDefault());
+
+    /**
+     * @return This record as one compact JSON object, without the line break.
+     */
+    public String toJson() {
+        StringBuilder out = new StringBuilder(192);
+        out.append("{\"time\":").append(timeMillis)
+            .append(",\"type\":\"").append(type.name().toLowerCase(Locale.ROOT))
+            .append("\",\"outcome\":\"").append(outcome.name().toLowerCase(Locale.ROOT))
+            .append("\",\"player\":\"");
+        appendEscaped(out, player)
+            .append("\",\"playerUuid\":\"").append(playerUuid).append('"');
+
+        if (other != null) {
+            out.append(",\"other\":\"");
+            appendEscaped(out, other)
+                .append("\",\"otherUuid\":\"").append(otherUuid).append('"');
+        }
+
+        if (dimension != null) {
+            out.append(",\"dimension\":\"");
+            appendEscaped(out, dimension).append('"')
+                .append(",\"x\":").append(round(x))
+                .append(",\"y\":").append(round(y))
+                .append(",\"z\":").append(round(z));
+        }
+
+        return out.append('}').toString();
+    }
+
+    /**
+     * @return The record {@link #toJson()} wrote.
+     * @throws RuntimeException If {@code line} is not one.
+     */
+    public static AuditRecord fromJson(String line) {
+        JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+        boolean hasOther = json.has("other");
+        boolean hasPlace = json.has("dimension");
+
+        return new AuditRecord(
+            json.get("time").getAsLong(),
+            AuditType.valueOf(json.get("type").getAsString().toUpperCase(Locale.ROOT)),
+            AuditOutcome.valueOf(json.get("outcome").getAsString().toUpperCase(Locale.ROOT)),
+            json.get("player").getAsString(), UUID.fromString(json.get("playerUuid").getAsString()),
+            hasOther ? json.get("other").getAsString() : null, hasOther ? UUID.fromString(json.get("otherUuid").getAsString()) : null,
+            hasPlace ? json.get("dimension").getAsString() : null,
+            hasPlace ? json.get("x").getAsDouble() : 0,
+            hasPlace ? json.get("y").getAsDouble() : 0,
+            hasPlace ? json.get("z").getAsDouble() : 0
+        );
+    }
+
+    public String formattedTime() {
+        return TIME_FORMAT.format(Instant.ofEpochMilli(timeMillis));
+    }
+
+    /**
+     * @return {@code <dimension> <x> <y> <z>}, or {@code -} if it did not happen at a place.
+     */
+    public String formattedPlace() {
+        if (dimension == null) return "-";
+        return String.format(Locale.ROOT, "%s %.1f %.1f %.1f", dimension, x, y, z);
+    }
+
+    /**
+     * Appends {@code value} as the inside of a JSON string, escaping quotes, backslashes and control characters.
+     */
+    private static StringBuilder appendEscaped(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) out.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    else out.append(c);
+            }
+        }
+
+        return out;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,19 @@
+package com.thatmg393.tpa4fabric.audit;
+
+import com.thatmg393.tpa4fabric.tpa.request.type.RequestType;
+
+/**
+ * What an {@link AuditRecord} is about.
+ */
+public enum AuditType {
+    TPA,
+    TPAHERE,
+    TPABACK,
+    WARP,
+    HOME,
+    SESSION;
+
+    public static AuditType of(RequestType type) {
+        return type == RequestType.HERE ? TPAHERE : TPA;
+    }
+}
@@ -2,63 +2,317 @@ package com.thatmg393.tpa4fabric.config;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.thatmg393.tpa4fabric.TPA4Fabric;
 import com.thatmg393.tpa4fabric.config.data.ModConfigData;
 
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.loader.api.FabricLoader;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Owns the published {@link ModConfigData} snapshot.
+ * Reads are a single volatile load, every change (file edit, {@code /tpaconfig}) parses or copies
+ * into a new instance, validates it and swaps the reference.
+ */
 public class ModConfigManager {
     private static final Gson GSON = new GsonBuilder().serializeNulls().setPrettyPrinting().create();
-    public static final File CONFIG_PATH = new File(Paths.get(
-            FabricLoader.getInstance().getConfigDir().toString(),
-            TPA4Fabric.MOD_ID + ".json"
-        ).toString()
-    );
+    public static final File CONFIG_PATH = resolveConfigDir().resolve(TPA4Fabric.MOD_ID + ".json").toFile();
 
-    private static ModConfigData defaultConfig = new ModConfigData();
-    private static ModConfigData loadedConfig;
+    private static final long RELOAD_SETTLE_MILLIS = 200;
+    private static final Map<String, Field> KEYS = collectKeys();
+
+    private static final ModConfigData defaultConfig = new ModConfigData();
+    private static volatile ModConfigData loadedConfig;
+
+    private static String lastWrittenJson;
+    private static WatchService watchService;
 
     public static ModConfigData loadOrGetConfig() {
+        ModConfigData config = loadedConfig;
+        if (config != null)
+            return config;
+
+        return load();
+    }
+
+    public static ModConfigData getDefaultConfig() {
+        return defaultConfig;
+    }
+
+    /**
+     * Reads the config file, or writes the defaults when there is none.
+     * A file that fails to parse keeps the current snapshot (or the defaults on first load).
+     */
+    private static synchronized ModConfigData load() {
         if (loadedConfig != null)
             return loadedConfig;
 
-        try {
-            BufferedReader bufferedReader = new BufferedReader(new FileReader(CONFIG_PATH));
-            ModConfigData parsedConfig = GSON.fromJson(bufferedReader, ModConfigData.class);
-
-            if (parsedConfig.configVersion != defaultConfig.configVersion)
-                TPA4Fabric.LOGGER.warn("Config versions DO NOT MATCH!"); // TODO? : do smth with old conf ver
-            
-            loadedConfig = parsedConfig;
-        } catch (FileNotFoundException e) {
-            TPA4Fabric.LOGGER.error("An exception occurred! " + e.toString());
+        if (!CONFIG_PATH.exists()) {
+            TPA4Fabric.LOGGER.info("No config found, using default config instead...");
+            publish(new ModConfigData(), true);
+            return loadedConfig;
+        }
 
+        if (!reload()) {
             TPA4Fabric.LOGGER.info("Using default config instead...");
-            loadedConfig = new ModConfigData();
-            saveConfig();
+            publish(new ModConfigData(), false);
         }
 
         return loadedConfig;
     }
 
-    public static ModConfigData getDefaultConfig() {
-        return defaultConfig;
+    /**
+     * Re-reads the config file and publishes it.
+     * 
+     * @return Whether the file parsed, the current snapshot is kept if it didn't.
+     */
+    public static synchronized boolean reload() {
+        String json;
+        ModConfigData parsedConfig;
+
+        try {
+            json = Files.readString(CONFIG_PATH.toPath(), StandardCharsets.UTF_8);
+            parsedConfig = GSON.fromJson(json, ModConfigData.class);
+        } catch (IOException | JsonParseException e) {
+            TPA4Fabric.LOGGER.error("Failed to read config! " + e.toString());
+            return false;
+        }
+
+        if (parsedConfig == null) {
+            TPA4Fabric.LOGGER.error("Failed to read config! The file is empty.");
+            return false;
+        }
+
+        int fileVersion = parsedConfig.configVersion();
+        if (parsedConfig.isFromNewerVersion())
+            TPA4Fabric.LOGGER.warn("Config is from a newer version (" + fileVersion + ", this one knows " + ModConfigData.CURRENT_VERSION + "), using it as is and never writing to it.");
+
+        boolean changed = parsedConfig.migrate();
+        if (changed)
+            TPA4Fabric.LOGGER.info("Migrated config from version " + fileVersion + " to " + ModConfigData.CURRENT_VERSION);
+
+        List<String> problems = new ArrayList<>();
+        parsedConfig.validate(problems);
+        for (String problem : problems)
+            TPA4Fabric.LOGGER.warn("Invalid config value, using the default: " + problem);
+
+        lastWrittenJson = json;
+        publish(parsedConfig, changed || !problems.isEmpty());
+        return true;
+    }
+
+    /**
+     * Publishes a copy of the current snapshot with one value changed, then saves it.
+     * 
+     * @throws IllegalArgumentException If the key is unknown or the value doesn't parse or is out of range.
+     */
+    public static synchronized ModConfigData set(String key, String value) {
+        Field field = KEYS.get(key);
+        if (field == null)
+            throw new IllegalArgumentException("Unknown config key " + key);
+
+        ModConfigData copy = GSON.fromJson(GSON.toJsonTree(loadOrGetConfig()), ModConfigData.class);
+        try {
+            field.set(copy, parseValue(field.getType(), value));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot change " + key, e);
+        }
+
+        List<String> problems = new ArrayList<>();
+        copy.validate(problems);
+        if (!problems.isEmpty())
+            throw new IllegalArgumentException(problems.get(0));
+
+        publish(copy, true);
+        return copy;
+    }
+
+    public static String get(String key) {
+        Field field = KEYS.get(key);
+        if (field == null)
+            throw new IllegalArgumentException("Unknown config key " + key);
+
+        try {
+            return String.valueOf(field.get(loadOrGetConfig()));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot read " + key, e);
+        }
+    }
+
+    public static Iterable<String> getKeys() {
+        return KEYS.keySet();
+    }
+
+    /**
+     * The loader's config directory, or {@code ./config} when there is no Fabric launch around, like in the benchmarks.
+     */
+    private static Path resolveConfigDir() {
+        try {
+            Path dir = FabricLoader.getInstance().getConfigDir();
+            if (dir != null) return dir;
+        } catch (RuntimeException | LinkageError ignored) { }
+
+        return Paths.get("config");
     }
 
     public static void saveConfig() {
-        try (FileWriter fileWriter = new FileWriter(CONFIG_PATH)) {
-            String serializedJson = GSON.toJson(loadedConfig);
-            fileWriter.write(serializedJson);
+        save(loadOrGetConfig());
+    }
+
+    /**
+     * Starts a daemon thread that reloads the config when the file changes on disk.
+     * Writes made by {@link #saveConfig()} are recognized and skipped.
+     */
+    public static synchronized void startWatching() {
+        if (watchService != null) return;
+
+        Path directory = CONFIG_PATH.toPath().toAbsolutePath().getParent();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(
+                watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY
+            );
+        } catch (IOException e) {
+            TPA4Fabric.LOGGER.error("Failed to watch the config for changes, use /tpaconfig reload instead. " + e.toString());
+            return;
+        }
+
+        Thread thread = new Thread(() -> watch(watchService), "TPA4Fabric-ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> stopWatching());
+    }
+
+    public static synchronized void stopWatching() {
+        if (watchService == null) return;
+
+        try {
+            watchService.close();
+        } catch (IOException ignored) { }
+        watchService = null;
+    }
+
+    private static void watch(WatchService service) {
+        String fileName = CONFIG_PATH.getName();
+
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean touched = false;
+
+                // Editors tend to write in several steps, let them settle into one reload
+                do {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.context() instanceof Path path && path.toString().equals(fileName))
+                            touched = true;
+                    }
+                    key.reset();
+                } while ((key = service.poll(RELOAD_SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+
+                if (touched && !isOwnWrite()) {
+                    TPA4Fabric.LOGGER.info("Config changed on disk, reloading...");
+                    if (reload()) TPA4Fabric.LOGGER.info("Reloaded!");
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) { }
+    }
+
+    private static synchronized boolean isOwnWrite() {
+        try {
+            return Files.readString(CONFIG_PATH.toPath(), StandardCharsets.UTF_8).equals(lastWrittenJson);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static synchronized void publish(ModConfigData config, boolean save) {
+        loadedConfig = config;
+        if (save) save(config);
+    }
+
+    private static synchronized void save(ModConfigData config) {
+        // writing it back would drop whatever the newer version added
+        if (config.isFromNewerVersion()) {
+            TPA4Fabric.LOGGER.warn("Not saving the config, it is from a newer version. Changes only last until the next restart.");
+            return;
+        }
+
+        String serializedJson = GSON.toJson(config);
+        Path path = CONFIG_PATH.toPath();
+        Path tmp = path.resolveSibling(CONFIG_PATH.getName() + ".tmp");
+
+        try {
+            Files.writeString(tmp, serializedJson, StandardCharsets.UTF_8);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lastWrittenJson = serializedJson;
         } catch (IOException e) {
             TPA4Fabric.LOGGER.error(e.toString());
         }
     }
-}
\ No newline at end of file
+
+    private static Object parseValue(Class<?> type, String value) {
+        try {
+            if (type == int.class) return Integer.parseInt(value);
+            if (type == double.class) return Double.parseDouble(value);
+            if (type == boolean.class) {
+                if (value.equalsIgnoreCase("true")) return true;
+                if (value.equalsIgnoreCase("false")) return false;
+                throw new IllegalArgumentException("Expected true or false, got " + value);
+            }
+            if (type.isEnum()) return parseEnum(type, value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number, got " + value);
+        }
+
+        throw new IllegalArgumentException("Unsupported config type " + type.getSimpleName());
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object parseEnum(Class<?> type, String value) {
+        try {
+            return Enum.valueOf((Class<? extends Enum>) type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            List<String> names = new ArrayList<>();
+            for (Object constant : type.getEnumConstants()) names.add(((Enum<?>) constant).name());
+            throw new IllegalArgumentException("Expected one of " + String.join(", ", names) + ", got " + value);
+        }
+    }
+
+    private static Map<String, Field> collectKeys() {
+        Map<String, Field> keys = new LinkedHashMap<>();
+        for (Field field : ModConfigData.class.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || field.getName().equals("configVersion")) continue;
+
+            field.setAccessible(true);
+            keys.put(field.getName(), field);
+        }
+
+        return Collections.unmodifiableMap(keys);
+    }
+}
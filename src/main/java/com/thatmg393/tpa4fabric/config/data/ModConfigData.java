@@ -1,14 +1,143 @@
 package com.thatmg393.tpa4fabric.config.data;
 
+import java.util.List;
+
+import com.thatmg393.tpa4fabric.tpa.display.CountdownDisplay;
+import com.thatmg393.tpa4fabric.tpa.request.RequestInbox;
+
+/**
+ * A snapshot of the config. Published instances are never modified, a change always publishes a new one.
+ * @see com.thatmg393.tpa4fabric.config.ModConfigManager
+ */
 public class ModConfigData {
-    public int tpaCooldown = 5; // in seconds
-    public int tpaExpireTime = 120; // in seconds;
-    public int tpaTeleportTime = 5; // in seconds;
+    public static final int CURRENT_VERSION = 11;
+
+    private int tpaCooldown = 5; // in seconds, per use earned back
+    private int tpaCooldownBurst = 1; // uses that can be spent back to back
+    private int tpaHereCooldown = 5;
+    private int tpaHereCooldownBurst = 1;
+    private int tpaBackCooldown = 0;
+    private int tpaBackCooldownBurst = 1;
+    private int waypointCooldown = 5; // /home and /warp share this one
+    private int waypointCooldownBurst = 1;
+    private int tpaExpireTime = 120; // in seconds;
+    private int tpaTeleportTime = 5; // in seconds;
+    private int teleportsPerTick = 10; // at most this many queued teleports happen in one tick
+    private int teleportTickBudget = 5; // in milliseconds per tick, 0 only limits by count
+    private boolean safeLanding = true; // move teleports off lava, out of walls and out of the void
+    private int safeLandingRadius = 3; // in blocks around the destination, within its chunk
+
+    private int tpaRequestLimit = 99;
+    private RequestInbox.LimitPolicy tpaRequestLimitPolicy = RequestInbox.LimitPolicy.REJECT_NEWEST;
+
+    private double tpaMoveThreshold = 0.5; // in blocks
+    private boolean tpaCancelOnRotate = false;
+    private boolean tpaCancelOnDamage = false;
+
+    private boolean defaultAllowTPARequests = true;
+    private boolean oneTimeTPABack = true;
+    private boolean tpaBackOnDeath = true;
+    private int tpaBackHistorySize = 5;
+    private int maxHomes = 5; // 0 turns /sethome off
+    private CountdownDisplay.Mode countdownDisplayMode = CountdownDisplay.Mode.ACTION_BAR;
+    private boolean clientSideTranslation = false; // send translatable messages, for clients with a resource pack
+    private int metricsExportInterval = 15; // in seconds, 0 disables the metrics.prom file
+    private boolean audit = true; // keep the audit journal
+    private int auditMaxFileSize = 8192; // in KiB, the journal is rotated once it gets this big
+    private int auditMaxFiles = 5; // rotated journals kept besides the current one
+
+    private int configVersion = CURRENT_VERSION; // internal value
+
+    public int tpaCooldown() { return tpaCooldown; }
+    public int tpaCooldownBurst() { return tpaCooldownBurst; }
+    public int tpaHereCooldown() { return tpaHereCooldown; }
+    public int tpaHereCooldownBurst() { return tpaHereCooldownBurst; }
+    public int tpaBackCooldown() { return tpaBackCooldown; }
+    public int tpaBackCooldownBurst() { return tpaBackCooldownBurst; }
+    public int waypointCooldown() { return waypointCooldown; }
+    public int waypointCooldownBurst() { return waypointCooldownBurst; }
+    public int tpaExpireTime() { return tpaExpireTime; }
+    public int tpaTeleportTime() { return tpaTeleportTime; }
+    public int teleportsPerTick() { return teleportsPerTick; }
+    public int teleportTickBudget() { return teleportTickBudget; }
+    public boolean safeLanding() { return safeLanding; }
+    public int safeLandingRadius() { return safeLandingRadius; }
+
+    public int tpaRequestLimit() { return tpaRequestLimit; }
+    public RequestInbox.LimitPolicy tpaRequestLimitPolicy() { return tpaRequestLimitPolicy; }
+
+    public double tpaMoveThreshold() { return tpaMoveThreshold; }
+    public boolean tpaCancelOnRotate() { return tpaCancelOnRotate; }
+    public boolean tpaCancelOnDamage() { return tpaCancelOnDamage; }
+
+    public boolean defaultAllowTPARequests() { return defaultAllowTPARequests; }
+    public boolean oneTimeTPABack() { return oneTimeTPABack; }
+    public boolean tpaBackOnDeath() { return tpaBackOnDeath; }
+    public int tpaBackHistorySize() { return tpaBackHistorySize; }
+    public int maxHomes() { return maxHomes; }
+    public CountdownDisplay.Mode countdownDisplayMode() { return countdownDisplayMode; }
+    public boolean clientSideTranslation() { return clientSideTranslation; }
+    public int metricsExportInterval() { return metricsExportInterval; }
+    public boolean audit() { return audit; }
+    public int auditMaxFileSize() { return auditMaxFileSize; }
+    public int auditMaxFiles() { return auditMaxFiles; }
+
+    public int configVersion() { return configVersion; }
+
+    /**
+     * @return Whether this config was written by a newer version of the mod, it may have fields this one drops.
+     */
+    public boolean isFromNewerVersion() {
+        return configVersion > CURRENT_VERSION;
+    }
+
+    /**
+     * Brings a freshly parsed, not yet published config up to {@link #CURRENT_VERSION}.
+     * Fields added since its version already hold their defaults, Gson only overwrites what the file has.
+     * Only ever migrates forward, a config from a newer version is left as it is.
+     * 
+     * @return Whether anything changed.
+     */
+    public boolean migrate() {
+        if (configVersion >= CURRENT_VERSION) return false;
+
+        // up to v11: nothing renamed, only new fields
+        configVersion = CURRENT_VERSION;
+        return true;
+    }
+
+    /**
+     * Resets out of range values of a freshly parsed, not yet published config to a sane value.
+     * 
+     * @param problems Gets a line for every value that had to be changed.
+     */
+    public void validate(List<String> problems) {
+        ModConfigData defaults = new ModConfigData();
+
+        if (tpaCooldown < 0) { problems.add("tpaCooldown must be >= 0"); tpaCooldown = defaults.tpaCooldown; }
+        if (tpaCooldownBurst < 1) { problems.add("tpaCooldownBurst must be >= 1"); tpaCooldownBurst = defaults.tpaCooldownBurst; }
+        if (tpaHereCooldown < 0) { problems.add("tpaHereCooldown must be >= 0"); tpaHereCooldown = defaults.tpaHereCooldown; }
+        if (tpaHereCooldownBurst < 1) { problems.add("tpaHereCooldownBurst must be >= 1"); tpaHereCooldownBurst = defaults.tpaHereCooldownBurst; }
+        if (tpaBackCooldown < 0) { problems.add("tpaBackCooldown must be >= 0"); tpaBackCooldown = defaults.tpaBackCooldown; }
+        if (tpaBackCooldownBurst < 1) { problems.add("tpaBackCooldownBurst must be >= 1"); tpaBackCooldownBurst = defaults.tpaBackCooldownBurst; }
+        if (waypointCooldown < 0) { problems.add("waypointCooldown must be >= 0"); waypointCooldown = defaults.waypointCooldown; }
+        if (waypointCooldownBurst < 1) { problems.add("waypointCooldownBurst must be >= 1"); waypointCooldownBurst = defaults.waypointCooldownBurst; }
+        if (tpaExpireTime < 1) { problems.add("tpaExpireTime must be >= 1"); tpaExpireTime = defaults.tpaExpireTime; }
+        if (tpaTeleportTime < 0) { problems.add("tpaTeleportTime must be >= 0"); tpaTeleportTime = defaults.tpaTeleportTime; }
+        if (teleportsPerTick < 1) { problems.add("teleportsPerTick must be >= 1"); teleportsPerTick = defaults.teleportsPerTick; }
+        if (teleportTickBudget < 0) { problems.add("teleportTickBudget must be >= 0"); teleportTickBudget = defaults.teleportTickBudget; }
+        if (safeLandingRadius < 0 || safeLandingRadius > 15) { problems.add("safeLandingRadius must be between 0 and 15"); safeLandingRadius = defaults.safeLandingRadius; }
 
-    public int tpaRequestLimit = 99;
+        if (tpaRequestLimit < 1) { problems.add("tpaRequestLimit must be >= 1"); tpaRequestLimit = defaults.tpaRequestLimit; }
+        if (tpaRequestLimitPolicy == null) { problems.add("tpaRequestLimitPolicy is not a known policy"); tpaRequestLimitPolicy = defaults.tpaRequestLimitPolicy; }
 
-    public boolean defaultAllowTPARequests = true;
-    public boolean oneTimeTPABack = true;
+        if (!(tpaMoveThreshold >= 0)) { problems.add("tpaMoveThreshold must be >= 0"); tpaMoveThreshold = defaults.tpaMoveThreshold; }
 
-    public int configVersion = 3; // internal value
+        if (tpaBackHistorySize < 1) { problems.add("tpaBackHistorySize must be >= 1"); tpaBackHistorySize = defaults.tpaBackHistorySize; }
+        if (maxHomes < 0) { problems.add("maxHomes must be >= 0"); maxHomes = defaults.maxHomes; }
+        if (countdownDisplayMode == null) { problems.add("countdownDisplayMode is not a known mode"); countdownDisplayMode = defaults.countdownDisplayMode; }
+        if (metricsExportInterval < 0) { problems.add("metricsExportInterval must be >= 0"); metricsExportInterval = defaults.metricsExportInterval; }
+        if (auditMaxFileSize < 1) { problems.add("auditMaxFileSize must be >= 1"); auditMaxFileSize = defaults.auditMaxFileSize; }
+        if (auditMaxFiles < 0) { problems.add("auditMaxFiles must be >= 0"); auditMaxFiles = defaults.auditMaxFiles; }
+    }
 }
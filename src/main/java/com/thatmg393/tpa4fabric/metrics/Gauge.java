@@ -0,0 +1,29 @@
+package com.thatmg393.tpa4fabric.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A value read on demand, only sampled on the server thread.
+ */
+public class Gauge extends Metric {
+    private final LongSupplier supplier;
+
+    Gauge(String name, String labels, String help, LongSupplier supplier) {
+        super(name, labels, help);
+        this.supplier = supplier;
+    }
+
+    public long get() {
+        return supplier.getAsLong();
+    }
+
+    @Override
+    String type() {
+        return "gauge";
+    }
+
+    @Override
+    void writeSamples(StringBuilder out) {
+        sample(out, name, labels, get());
+    }
+}
@@ -0,0 +1,91 @@
+package com.thatmg393.tpa4fabric.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency distribution over power of two nanosecond buckets.
+ * <p>
+ * Bucket {@code i} holds durations below {@code 2^i} ns, so recording is a leading zero count and a striped add.
+ * Anything at or above {@link #MAX_TRACKED_NANOS} (about 9 minutes) lands in the overflow bucket.
+ */
+public class Histogram extends Metric {
+    private static final int MAX_BUCKET = 39;
+    public static final long MAX_TRACKED_NANOS = 1L << MAX_BUCKET;
+    private static final int MIN_EXPORTED_BUCKET = 10; // ~1 microsecond, finer buckets are noise
+
+    private final LongAdder[] buckets = new LongAdder[MAX_BUCKET + 2];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    Histogram(String name, String labels, String help) {
+        super(name, labels, help);
+        for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+
+        int bucket = Math.min(64 - Long.numberOfLeadingZeros(nanos), MAX_BUCKET + 1);
+        buckets[bucket].increment();
+        count.increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Records the time passed since {@code startNanos}, a value from {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+
+    /**
+     * @return The upper bound of the bucket the {@code quantile} falls in, in nanoseconds.
+     *         {@code -1} if nothing was recorded, {@link Long#MAX_VALUE} if it is in the overflow bucket.
+     */
+    public long getQuantileNanos(double quantile) {
+        long total = getCount();
+        if (total == 0) return -1;
+
+        long target = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i <= MAX_BUCKET; i++) {
+            seen += buckets[i].sum();
+            if (seen >= target) return 1L << i;
+        }
+
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    String type() {
+        return "histogram";
+    }
+
+    @Override
+    void writeSamples(StringBuilder out) {
+        String bucketName = name + "_bucket";
+        String separator = labels.isEmpty() ? "" : labels + ",";
+
+        long cumulative = 0;
+        for (int i = 0; i <= MAX_BUCKET; i++) {
+            cumulative += buckets[i].sum();
+            if (i < MIN_EXPORTED_BUCKET) continue;
+
+            sample(out, bucketName, separator + "le=\"" + ((1L << i) / 1e9) + "\"", cumulative);
+        }
+
+        // read separately from the buckets, so keep the invariant +Inf == count true at least for this scrape
+        long total = cumulative + buckets[MAX_BUCKET + 1].sum();
+        sample(out, bucketName, separator + "le=\"+Inf\"", total);
+        sample(out, name + "_sum", labels, getSumNanos() / 1e9);
+        sample(out, name + "_count", labels, total);
+    }
+}
@@ -0,0 +1,26 @@
+package com.thatmg393.tpa4fabric.metrics;
+
+/**
+ * Base of every metric in {@link TPAMetrics}, knows how to write itself in the Prometheus text format.
+ */
+public abstract class Metric {
+    public final String name;
+    public final String labels;
+    public final String help;
+
+    Metric(String name, String labels, String help) {
+        this.name = name;
+        this.labels = labels;
+        this.help = help;
+    }
+
+    abstract String type();
+
+    abstract void writeSamples(StringBuilder out);
+
+    static void sample(StringBuilder out, String name, String labels, Object value) {
+        out.append(name);
+        if (!labels.isEmpty()) out.append('{').append(labels).append('}');
+        out.append(' ').append(value).append('\n');
+    }
+}
@@ -0,0 +1,207 @@
+package com.thatmg393.tpa4fabric.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+import com.thatmg393.tpa4fabric.TPA4Fabric;
+import com.thatmg393.tpa4fabric.audit.AuditJournal;
+import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.persistence.DataStorage;
+import com.thatmg393.tpa4fabric.tpa.TPAManager;
+import com.thatmg393.tpa4fabric.tpa.chunk.ChunkPreloader;
+import com.thatmg393.tpa4fabric.tpa.teleport.TeleportExecutor;
+import com.thatmg393.tpa4fabric.tpa.watcher.MovementWatcher;
+import com.thatmg393.tpa4fabric.tpa.wrapper.result.CommandResult;
+import com.thatmg393.tpa4fabric.utils.scheduler.TickScheduler;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+
+/**
+ * Every metric the mod keeps, plus the periodic Prometheus text file export.
+ * <p>
+ * Counters and histograms can be updated from any thread, gauges and the export itself only run on the server thread.
+ * The file is written to {@code <world>/tpa4fabric/metrics.prom} every {@code metricsExportInterval} seconds,
+ * through a temporary file so a scraper never reads half of it.
+ */
+public class TPAMetrics {
+    private static final List<Metric> METRICS = new ArrayList<>();
+
+    public static final Counter REQUESTS_CREATED = counter("tpa4fabric_requests_created_total", "", "Requests sent with /tpa or /tpahere.");
+    public static final Counter REQUESTS_ACCEPTED = counter("tpa4fabric_requests_accepted_total", "", "Requests accepted by their receiver.");
+    public static final Counter REQUESTS_DENIED = counter("tpa4fabric_requests_denied_total", "", "Requests denied by their receiver.");
+    public static final Counter REQUESTS_EXPIRED = counter("tpa4fabric_requests_expired_total", "", "Requests nobody answered in time.");
+    public static final Counter REQUESTS_CANCELLED = counter("tpa4fabric_requests_cancelled_total", "", "Requests dropped before being answered or while warming up, evictions not included.");
+    public static final Counter REQUESTS_EVICTED = counter("tpa4fabric_requests_evicted_total", "", "Requests dropped to make room in a full inbox.");
+
+    public static final Counter WARMUPS_FAILED_MOVED = counter("tpa4fabric_warmups_failed_total", "reason=\"moved\"", "Warmups that did not end in a teleport.");
+    public static final Counter WARMUPS_FAILED_HURT = counter("tpa4fabric_warmups_failed_total", "reason=\"hurt\"", "Warmups that did not end in a teleport.");
+    public static final Counter WARMUPS_FAILED_GONE = counter("tpa4fabric_warmups_failed_total", "reason=\"dead_or_disconnected\"", "Warmups that did not end in a teleport.");
+
+    public static final Counter TELEPORTS_REQUEST = counter("tpa4fabric_teleports_total", "kind=\"request\"", "Teleports performed.");
+    public static final Counter TELEPORTS_BACK = counter("tpa4fabric_teleports_total", "kind=\"back\"", "Teleports performed.");
+    public static final Counter TELEPORTS_DROPPED = counter("tpa4fabric_teleports_dropped_total", "", "Queued teleports dropped because the player died or left first.");
+
+    public static final Counter SAFE_LANDING_SEARCHES = counter("tpa4fabric_safe_landing_searches_total", "", "Unsafe destinations searched for a safe spot off the server thread.");
+    public static final Counter SAFE_LANDING_CACHE_HITS = counter("tpa4fabric_safe_landing_cache_hits_total", "", "Unsafe destinations served from the per section spot cache.");
+
+    public static final Counter AUDIT_WRITTEN = counter("tpa4fabric_audit_entries_total", "", "Audit journal entries written to disk.");
+    public static final Counter AUDIT_DROPPED = counter("tpa4fabric_audit_dropped_total", "", "Audit journal entries dropped because the writer fell behind.");
+
+    public static final Histogram WARMUP_TO_TELEPORT = histogram("tpa4fabric_warmup_to_teleport_seconds", "", "From the end of the warmup to the teleport, waiting for the destination chunk and the teleport queue.");
+    public static final Histogram ACCEPT_TO_TELEPORT = histogram("tpa4fabric_accept_to_teleport_seconds", "", "From accepting a request to the teleport, warmup included.");
+    public static final Histogram TELEPORT_CALL = histogram("tpa4fabric_teleport_call_seconds", "", "Server thread time spent inside a single teleport.");
+    public static final Histogram TELEPORT_QUEUE_WAIT = histogram("tpa4fabric_teleport_queue_wait_seconds", "", "Time a ready teleport waited in the teleport queue.");
+
+    // per command series, indexed by Command and CommandResult ordinal, kept here so Command never initializes this class
+    private static final Counter[][] COMMAND_RESULTS = new Counter[Command.values().length][CommandResult.values().length];
+    private static final Histogram[] COMMAND_DURATIONS = new Histogram[Command.values().length];
+
+    static {
+        gauge("tpa4fabric_players", "", "Players known to TPA.", () -> TPAManager.getInstance().getPlayerRegistry().size());
+        gauge("tpa4fabric_scheduled_tasks", "", "Tasks waiting in the tick scheduler.", () -> TickScheduler.getInstance().getPendingTaskCount());
+        gauge("tpa4fabric_chunk_preloads_pending", "", "Chunk preloads still waiting for their chunk.", () -> ChunkPreloader.getInstance().getPendingCount());
+        gauge("tpa4fabric_teleport_queue_depth", "", "Teleports waiting for their turn.", () -> TeleportExecutor.getInstance().getQueueDepth());
+        gauge("tpa4fabric_movement_watches", "", "Warmups currently watched for movement.", () -> MovementWatcher.getInstance().getActiveWatchCount());
+        gauge("tpa4fabric_audit_backlog", "", "Audit journal entries waiting to be written.", () -> AuditJournal.getInstance().getBacklog());
+
+        for (Command command : Command.values()) {
+            String name = command.name().toLowerCase(Locale.ROOT);
+            for (CommandResult result : CommandResult.values()) {
+                COMMAND_RESULTS[command.ordinal()][result.ordinal()] = counter(
+                    "tpa4fabric_commands_total",
+                    "command=\"" + name + "\",result=\"" + result.name().toLowerCase(Locale.ROOT) + "\"",
+                    "Commands run, by their result."
+                );
+            }
+
+            COMMAND_DURATIONS[command.ordinal()] = histogram("tpa4fabric_command_seconds", "command=\"" + name + "\"", "Server thread time spent running a command.");
+        }
+    }
+
+    private static final TPAMetrics INSTANCE = new TPAMetrics();
+
+    public static TPAMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    private long lastExportTick = 0;
+
+    private TPAMetrics() {
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> {
+            lastExportTick = TickScheduler.getInstance().getCurrentTick();
+            TickScheduler.getInstance().scheduleRepeating(TickScheduler.TICKS_PER_SECOND, TickScheduler.TICKS_PER_SECOND, this::exportIfDue);
+        });
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> export());
+    }
+
+    public List<Metric> getMetrics() {
+        return Collections.unmodifiableList(METRICS);
+    }
+
+    /**
+     * @return All metrics in the Prometheus text exposition format, call on the server thread.
+     */
+    public String render() {
+        StringBuilder out = new StringBuilder(8192);
+
+        String previousName = null;
+        for (Metric metric : METRICS) {
+            // labelled series of one metric sit next to each other, see register()
+            if (!metric.name.equals(previousName)) {
+                out.append("# HELP ").append(metric.name).append(' ').append(metric.help).append('\n');
+                out.append("# TYPE ").append(metric.name).append(' ').append(metric.type()).append('\n');
+                previousName = metric.name;
+            }
+
+            metric.writeSamples(out);
+        }
+
+        return out.toString();
+    }
+
+    private void exportIfDue() {
+        int interval = ModConfigManager.loadOrGetConfig().metricsExportInterval();
+        if (interval <= 0) return;
+
+        long now = TickScheduler.getInstance().getCurrentTick();
+        if (now - lastExportTick < TickScheduler.secondsToTicks(interval)) return;
+
+        lastExportTick = now;
+        export();
+    }
+
+    private void export() {
+        if (ModConfigManager.loadOrGetConfig().metricsExportInterval() <= 0) return;
+
+        String text = render();
+        Path path = DataStorage.getInstance().resolve("metrics.prom");
+
+        DataStorage.getInstance().execute(() -> {
+            Path tmp = path.resolveSibling("metrics.prom.tmp");
+            try {
+                Files.createDirectories(path.getParent());
+                Files.writeString(tmp, text, StandardCharsets.UTF_8);
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                TPA4Fabric.LOGGER.error("Failed to write metrics! " + e.toString());
+            }
+        });
+    }
+
+    private static void register(Metric metric) {
+        int index = METRICS.size();
+        for (int i = 0; i < METRICS.size(); i++) {
+            if (METRICS.get(i).name.equals(metric.name)) index = i + 1;
+        }
+
+        METRICS.add(index, metric);
+    }
+
+    private static Counter counter(String name, String labels, String help) {
+        Counter counter = new Counter(name, labels, help);
+        register(counter);
+
+        return counter;
+    }
+
+    private static Histogram histogram(String name, String labels, String help) {
+        Histogram histogram = new Histogram(name, labels, help);
+        register(histogram);
+
+        return histogram;
+    }
+
+    private static Gauge gauge(String name, String labels, String help, LongSupplier supplier) {
+        Gauge gauge = new Gauge(name, labels, help, supplier);
+        register(gauge);
+
+        return gauge;
+    }
+
+    /**
+     * Per command invocation counts by result, and how long the command took on the server thread.
+     */
+    public static enum Command {
+        TPA, TPAHERE, TPABACK, TPAACCEPT, TPADENY, TPAALLOW;
+
+        /**
+         * @param startNanos When the command started, from {@link System#nanoTime()}.
+         */
+        public void record(CommandResult result, long startNanos) {
+            COMMAND_DURATIONS[ordinal()].recordSince(startNanos);
+            COMMAND_RESULTS[ordinal()][result.ordinal()].increment();
+        }
+
+        public Histogram getDuration() {
+            return COMMAND_DURATIONS[ordinal()];
+        }
+    }
+}
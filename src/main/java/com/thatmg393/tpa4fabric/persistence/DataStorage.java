@@ -0,0 +1,88 @@
+package com.thatmg393.tpa4fabric.persistence;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.thatmg393.tpa4fabric.TPA4Fabric;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.util.WorldSavePath;
+
+/**
+ * Owns the mod's data folder inside the world save and the single background thread every disk access goes through.
+ * <p>
+ * Tasks run one after the other in submission order, so a read queued before a write never sees it.
+ * Whatever is still queued when the server stops is flushed before the executor goes away,
+ * queue your last writes on {@code SERVER_STOPPING} at the latest, or with {@link #executeOnShutdown}.
+ */
+public class DataStorage {
+    private static final DataStorage INSTANCE = new DataStorage();
+
+    public static DataStorage getInstance() {
+        return INSTANCE;
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "TPA4Fabric-IO");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    private final ArrayList<Runnable> shutdownTasks = new ArrayList<>();
+
+    private volatile Path dataDir = null;
+
+    private DataStorage() {
+        ServerLifecycleEvents.SERVER_STARTING.register(server -> dataDir = server.getSavePath(WorldSavePath.ROOT).resolve(TPA4Fabric.MOD_ID));
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> shutdown());
+    }
+
+    /**
+     * @return A path inside {@code <world>/tpa4fabric/}, only valid once the server started.
+     */
+    public Path resolve(String first, String... more) {
+        Path path = dataDir.resolve(first);
+        for (String part : more) path = path.resolve(part);
+
+        return path;
+    }
+
+    public void execute(Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    TPA4Fabric.LOGGER.error("A background IO task failed! " + e.toString());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            TPA4Fabric.LOGGER.warn("Dropped a background IO task, the server is already stopped.");
+        }
+    }
+
+    /**
+     * Runs {@code task} on the IO thread every time the server stops, after everything else queued by then
+     * and before the thread goes away. Register it once, from the server thread.
+     */
+    public void executeOnShutdown(Runnable task) {
+        shutdownTasks.add(task);
+    }
+
+    private void shutdown() {
+        for (Runnable task : shutdownTasks) execute(task);
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS))
+                TPA4Fabric.LOGGER.warn("Background IO did not finish in time, some data might not be saved.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.thatmg393.tpa4fabric.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import com.thatmg393.tpa4fabric.TPA4Fabric;
+import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.utils.scheduler.TickScheduler;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.server.MinecraftServer;
+
+/**
+ * Keeps the {@link PlayerPreferences} of online players in memory and writes them behind.
+ * <p>
+ * Changes only mark a player dirty, every few seconds all dirty players are copied and written in one
+ * batch on the {@link DataStorage} thread, so several changes in between cost a single write.
+ * Reads never touch the disk, a player's file is read once in the background when they join.
+ * <p>
+ * Confined to the server thread.
+ */
+public class PlayerPreferenceStore {
+    private static final PlayerPreferenceStore INSTANCE = new PlayerPreferenceStore();
+
+    public static PlayerPreferenceStore getInstance() {
+        return INSTANCE;
+    }
+
+    private static final int FILE_VERSION = 2;
+    private static final long FLUSH_INTERVAL_TICKS = TickScheduler.secondsToTicks(5);
+
+    private final HashMap<UUID, PlayerPreferences> cache = new HashMap<>();
+    private final LinkedHashSet<UUID> dirty = new LinkedHashSet<>();
+
+    private PlayerPreferenceStore() {
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> TickScheduler.getInstance().scheduleRepeating(FLUSH_INTERVAL_TICKS, FLUSH_INTERVAL_TICKS, this::flush));
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            flush();
+            cache.clear();
+        });
+    }
+
+    /**
+     * Returns the cached preferences of {@code uuid}, defaults until the file is read in the background.
+     * {@code onLoaded} runs on the server thread once the stored values are in, values changed in the meantime are kept.
+     */
+    public PlayerPreferences acquire(UUID uuid, MinecraftServer server, Consumer<PlayerPreferences> onLoaded) {
+        PlayerPreferences preferences = cache.computeIfAbsent(uuid, u -> new PlayerPreferences(ModConfigManager.loadOrGetConfig().defaultAllowTPARequests()));
+
+        DataStorage.getInstance().execute(() -> {
+            PlayerPreferences stored = read(uuid);
+            if (stored == null) return;
+
+            server.execute(() -> {
+                if (cache.get(uuid) != preferences) return;
+
+                // a change made before the file was read is newer than it, only that field keeps its value
+                preferences.mergeStored(stored);
+                onLoaded.accept(preferences);
+            });
+        });
+
+        return preferences;
+    }
+
+    public void markDirty(UUID uuid) {
+        if (cache.containsKey(uuid)) dirty.add(uuid);
+    }
+
+    /**
+     * Writes {@code uuid} if needed and drops it from the cache.
+     */
+    public void release(UUID uuid) {
+        PlayerPreferences preferences = cache.remove(uuid);
+        if (preferences != null && dirty.remove(uuid)) write(uuid, preferences.copy());
+    }
+
+    public void flush() {
+        if (dirty.isEmpty()) return;
+
+        ArrayList<UUID> uuids = new ArrayList<>(dirty.size());
+        ArrayList<PlayerPreferences> copies = new ArrayList<>(dirty.size());
+        for (UUID uuid : dirty) {
+            uuids.add(uuid);
+            copies.add(cache.get(uuid).copy());
+        }
+        dirty.clear();
+
+        DataStorage.getInstance().execute(() -> {
+            for (int i = 0; i < uuids.size(); i++) writeNow(uuids.get(i), copies.get(i));
+        });
+    }
+
+    private void write(UUID uuid, PlayerPreferences copy) {
+        DataStorage.getInstance().execute(() -> writeNow(uuid, copy));
+    }
+
+    /* ==== Everything below runs on the DataStorage thread ==== */
+
+    private static Path getPath(UUID uuid) {
+        return DataStorage.getInstance().resolve("preferences", uuid + ".dat");
+    }
+
+    private static void writeNow(UUID uuid, PlayerPreferences preferences) {
+        Path path = getPath(uuid);
+        Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            Files.createDirectories(path.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpPath)))) {
+                out.writeByte(FILE_VERSION);
+                out.writeBoolean(preferences.allowTPARequests);
+
+                out.writeByte(preferences.cooldownTokens.length);
+                for (int i = 0; i < preferences.cooldownTokens.length; i++) {
+                    out.writeInt(preferences.cooldownTokens[i]);
+                    out.writeLong(preferences.cooldownLastRefillMillis[i]);
+                }
+            }
+
+            Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            TPA4Fabric.LOGGER.error("Failed to save the preferences of " + uuid + "! " + e.toString());
+        }
+    }
+
+    private static PlayerPreferences read(UUID uuid) {
+        Path path = getPath(uuid);
+        if (!Files.exists(path)) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            int version = in.readUnsignedByte();
+            if (version < 1 || version > FILE_VERSION) {
+                TPA4Fabric.LOGGER.warn("Unknown preferences version " + version + " for " + uuid + ", ignoring it.");
+                return null;
+            }
+
+            PlayerPreferences preferences = new PlayerPreferences(in.readBoolean());
+            if (version == 1) return preferences; // had a single fixed cooldown, not worth carrying over
+
+            int cooldowns = in.readUnsignedByte();
+            for (int i = 0; i < cooldowns; i++) {
+                int tokens = in.readInt();
+                long lastRefillMillis = in.readLong();
+
+                // cooldown types that no longer exist are skipped
+                if (i < preferences.cooldownTokens.length) {
+                    preferences.cooldownTokens[i] = tokens;
+                    preferences.cooldownLastRefillMillis[i] = lastRefillMillis;
+                }
+            }
+
+            return preferences;
+        } catch (IOException e) {
+            TPA4Fabric.LOGGER.error("Failed to read the preferences of " + uuid + "! " + e.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.thatmg393.tpa4fabric.persistence;
+
+import java.util.Arrays;
+
+import com.thatmg393.tpa4fabric.tpa.cooldown.CooldownType;
+
+/**
+ * The per-player state that has to survive a relog or a restart.
+ * Owned by the server thread, the {@link PlayerPreferenceStore} only ever writes copies of it.
+ * <p>
+ * Changes go through the setters, which remember what was changed so the stored values
+ * read in the background only fill in the rest.
+ */
+public class PlayerPreferences {
+    public boolean allowTPARequests;
+
+    // per CooldownType, ticks do not survive restarts so the last refill is kept as wall clock time
+    public final int[] cooldownTokens = new int[CooldownType.VALUES.length];
+    public final long[] cooldownLastRefillMillis = new long[CooldownType.VALUES.length];
+
+    private boolean allowTPARequestsChanged = false;
+    private final boolean[] cooldownChanged = new boolean[CooldownType.VALUES.length];
+
+    public PlayerPreferences(boolean allowTPARequests) {
+        this.allowTPARequests = allowTPARequests;
+        Arrays.fill(cooldownTokens, -1);
+    }
+
+    public void setAllowTPARequests(boolean allowTPARequests) {
+        this.allowTPARequests = allowTPARequests;
+        this.allowTPARequestsChanged = true;
+    }
+
+    public void setCooldown(CooldownType type, int tokens, long lastRefillMillis) {
+        cooldownTokens[type.ordinal()] = tokens;
+        cooldownLastRefillMillis[type.ordinal()] = lastRefillMillis;
+        cooldownChanged[type.ordinal()] = true;
+    }
+
+    /**
+     * @return Whether the cooldown at {@code index} was changed through {@link #setCooldown}.
+     */
+    public boolean isCooldownChanged(int index) {
+        return cooldownChanged[index];
+    }
+
+    /**
+     * Takes every value from {@code stored} that was not changed through a setter here, changed ones are newer.
+     */
+    public void mergeStored(PlayerPreferences stored) {
+        if (!allowTPARequestsChanged) allowTPARequests = stored.allowTPARequests;
+
+        for (int i = 0; i < cooldownTokens.length; i++) {
+            if (cooldownChanged[i]) continue;
+
+            cooldownTokens[i] = stored.cooldownTokens[i];
+            cooldownLastRefillMillis[i] = stored.cooldownLastRefillMillis[i];
+        }
+    }
+
+    public PlayerPreferences copy() {
+        PlayerPreferences copy = new PlayerPreferences(allowTPARequests);
+        copyCooldownsTo(copy);
+
+        return copy;
+    }
+
+    public void copyCooldownsTo(PlayerPreferences other) {
+        System.arraycopy(cooldownTokens, 0, other.cooldownTokens, 0, cooldownTokens.length);
+        System.arraycopy(cooldownLastRefillMillis, 0, other.cooldownLastRefillMillis, 0, cooldownLastRefillMillis.length);
+    }
+}
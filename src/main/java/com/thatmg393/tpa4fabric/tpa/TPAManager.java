@@ -1,23 +1,57 @@
 package com.thatmg393.tpa4fabric.tpa;
 
 import static com.thatmg393.tpa4fabric.utils.MCTextUtils.fromLang;
+import static com.thatmg393.tpa4fabric.utils.MCTextUtils.prefixed;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
 import com.thatmg393.tpa4fabric.TPA4Fabric;
+import com.thatmg393.tpa4fabric.audit.AuditJournal;
+import com.thatmg393.tpa4fabric.audit.AuditOutcome;
+import com.thatmg393.tpa4fabric.audit.AuditRecord;
+import com.thatmg393.tpa4fabric.audit.AuditType;
+import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.metrics.Counter;
+import com.thatmg393.tpa4fabric.metrics.Gauge;
+import com.thatmg393.tpa4fabric.metrics.Histogram;
+import com.thatmg393.tpa4fabric.metrics.Metric;
+import com.thatmg393.tpa4fabric.metrics.TPAMetrics;
+import com.thatmg393.tpa4fabric.persistence.PlayerPreferenceStore;
+import com.thatmg393.tpa4fabric.tpa.cooldown.CooldownType;
+import com.thatmg393.tpa4fabric.tpa.registry.TPAPlayerRegistry;
+import com.thatmg393.tpa4fabric.tpa.request.RequestIndex;
+import com.thatmg393.tpa4fabric.tpa.request.base.BaseRequest;
 import com.thatmg393.tpa4fabric.tpa.request.type.RequestType;
+import com.thatmg393.tpa4fabric.tpa.waypoint.Waypoint;
+import com.thatmg393.tpa4fabric.tpa.waypoint.WaypointManager;
+import com.thatmg393.tpa4fabric.tpa.waypoint.WaypointStore;
 import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+import com.thatmg393.tpa4fabric.tpa.wrapper.models.TeleportParameters;
 import com.thatmg393.tpa4fabric.tpa.wrapper.result.CommandResult;
-import com.thatmg393.tpa4fabric.tpa.wrapper.result.CommandResultWrapper;
+import com.thatmg393.tpa4fabric.utils.MCTextUtils;
+import com.thatmg393.tpa4fabric.utils.scheduler.TickScheduler;
 
+import net.fabricmc.fabric.api.entity.event.v1.ServerLivingEntityEvents;
 import net.fabricmc.fabric.api.entity.event.v1.ServerPlayerEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.text.Text;
 
 public class TPAManager {
     private static final TPAManager INSTANCE = new TPAManager();
 
+    /**
+     * What {@code /tpaaccept} and {@code /tpadeny} take instead of a name to act on the whole inbox.
+     */
+    public static final String ALL = "all";
+
     public static TPAManager getInstance() {
         return INSTANCE;
     }
@@ -25,100 +59,218 @@ public class TPAManager {
     private TPAManager() {
         ServerPlayConnectionEvents.JOIN.register((netHandler, packetSender, server) -> {
             ServerPlayerEntity playerWhoJoined = netHandler.getPlayer();
-            TPA4Fabric.LOGGER.info(playerWhoJoined.getNameForScoreboard() + " joined the server, registering in the TPA...");
+            TPAPlayerWrapper playerWrapper = players.register(playerWhoJoined);
+            playerWrapper.getHistory().loadAsync(server);
 
-            players.putIfAbsent(
-                playerWhoJoined.getUuidAsString(),
-                new TPAPlayerWrapper(playerWhoJoined)
+            AuditJournal.getInstance().record(
+                AuditType.SESSION, AuditOutcome.JOINED, playerWrapper, null,
+                playerWhoJoined.getWorld().getRegistryKey(), playerWhoJoined.getX(), playerWhoJoined.getY(), playerWhoJoined.getZ()
             );
         });
 
         ServerPlayConnectionEvents.DISCONNECT.register((netHandler, server) -> {
             ServerPlayerEntity playerWhoLeft = netHandler.getPlayer();
-            players.remove(playerWhoLeft.getUuidAsString());
+            TPAPlayerWrapper playerWrapper = players.unregister(playerWhoLeft.getUuid());
+            if (playerWrapper != null) {
+                AuditJournal.getInstance().record(
+                    AuditType.SESSION, AuditOutcome.LEFT, playerWrapper, null,
+                    playerWhoLeft.getWorld().getRegistryKey(), playerWhoLeft.getX(), playerWhoLeft.getY(), playerWhoLeft.getZ()
+                );
+                playerWrapper.markDisconnected();
+                RequestIndex.getInstance().cancelAll(playerWrapper);
+            }
+
+            PlayerPreferenceStore.getInstance().release(playerWhoLeft.getUuid());
+            WaypointManager.getInstance().release(playerWhoLeft.getUuid());
+        });
+
+        ServerLivingEntityEvents.AFTER_DEATH.register((entity, damageSource) -> {
+            if (!(entity instanceof ServerPlayerEntity deadPlayer)) return;
+
+            TPAPlayerWrapper playerWrapper = players.get(deadPlayer);
+            if (playerWrapper != null) {
+                playerWrapper.markDead();
+                RequestIndex.getInstance().cancelAll(playerWrapper);
+            }
         });
 
         ServerPlayerEvents.AFTER_RESPAWN.register((oldPlayer, newPlayer, alive) -> {
             // TODO: update references to already sent TPARequests
-            TPAPlayerWrapper playerWrapper = players.get(newPlayer.getUuidAsString());
+            TPAPlayerWrapper playerWrapper = players.get(newPlayer);
             if (playerWrapper != null) playerWrapper.updatePlayerReference(newPlayer);
-            else TPA4Fabric.LOGGER.warn("Somehow the respawned player is not stored in the HashMap, weird.");
+            else TPA4Fabric.LOGGER.warn("Somehow the respawned player is not stored in the registry, weird.");
         });
     }
 
-    private HashMap<String, TPAPlayerWrapper> players = new HashMap<>();
+    private final TPAPlayerRegistry players = new TPAPlayerRegistry();
+
+    public TPAPlayerRegistry getPlayerRegistry() {
+        return players;
+    }
 
     public int tpa(
         ServerPlayerEntity executer,
         ServerPlayerEntity target
     ) {
-        TPAPlayerWrapper you = players.get(executer.getUuidAsString());
-        TPAPlayerWrapper them = players.get(target.getUuidAsString());
+        return tpa(players.get(executer), players.get(target));
+    }
 
-        CommandResultWrapper<?> result = them.createNewTPARequest(RequestType.NORMAL, you);
+    /**
+     * {@code /tpa} once both players are looked up, also what the benchmarks drive.
+     */
+    public int tpa(
+        TPAPlayerWrapper you,
+        TPAPlayerWrapper them
+    ) {
+        long start = System.nanoTime();
 
-        switch (result.result()) {
+        CommandResult result = them.createNewTPARequest(RequestType.NORMAL, you);
+        TPAMetrics.Command.TPA.record(result, start);
+
+        switch (result) {
             case SUCCESS:
                 you.sendMessage(fromLang("tpa4fabric.message.requester.tpa", them.name));
                 them.sendMessage(fromLang("tpa4fabric.message.receiver.tpa", you.name));
                 return 1;
 
-            case TPA_SELF:
-                you.sendMessage(fromLang("tpa4fabric.message.error.tpa_to_self"));
-                return 0;
-
-            case NOT_ALLOWED:
-                you.sendMessage(fromLang("tpa4fabric.message.fail.tpa_not_allowed"));
-                return 0;
-
-            case ON_COOLDOWN:
-                you.sendMessage(fromLang("tpa4fabric.message.fail.tpa_on_cooldown", (Long) result.extraData().get()));
-                return 0;
-
-            case HAS_EXISTING:
-                you.sendMessage(fromLang("tpa4fabric.message.fail.has_existing_tpa"));
-                return 0;
-
             default:
-                TPA4Fabric.LOGGER.error("Unknown command result: " + result);
+                sendRequestFailure(you, them, RequestType.NORMAL, result);
                 return 0;
         }
     }
 
+    /**
+     * Suggests who {@code executer} can send a /tpa to.
+     */
+    public CompletableFuture<Suggestions> suggestTPATargets(
+        ServerPlayerEntity executer,
+        SuggestionsBuilder builder
+    ) {
+        TPAPlayerWrapper you = players.get(executer);
+        if (you == null) return builder.buildFuture();
+
+        return you.getTPATargets().suggest(players, you, builder);
+    }
+
+    /**
+     * Summons everyone in {@code targets} plus the space separated player names in {@code moreNames}.
+     * The cooldown is charged once for the whole group and the executer gets one message listing who got a request.
+     */
     public int tpahere(
         ServerPlayerEntity executer,
-        ServerPlayerEntity target
+        Collection<ServerPlayerEntity> targets,
+        String moreNames
     ) {
-        TPAPlayerWrapper you = players.get(executer.getUuidAsString());
-        TPAPlayerWrapper them = players.get(target.getUuidAsString());
+        long start = System.nanoTime();
+        TPAPlayerWrapper you = players.get(executer);
+
+        LinkedHashSet<TPAPlayerWrapper> them = new LinkedHashSet<>();
+        for (ServerPlayerEntity target : targets) them.add(players.get(target));
+        if (moreNames != null) {
+            for (String name : moreNames.split(" ")) {
+                if (name.isEmpty()) continue;
+
+                TPAPlayerWrapper player = players.getByName(name);
+                if (player != null) them.add(player);
+                else you.sendMessage(fromLang("tpa4fabric.message.fail.player_not_found", name));
+            }
+        }
 
-        CommandResultWrapper<?> result = you.createNewTPARequest(RequestType.HERE, them);
+        if (them.isEmpty()) {
+            TPAMetrics.Command.TPAHERE.record(CommandResult.IGNORE, start);
+            return 0;
+        }
 
-        switch (result.result()) {
-            case SUCCESS:
-                you.sendMessage(Text.literal("success!?"));
+        if (them.size() == 1) {
+            TPAPlayerWrapper target = them.iterator().next();
+            CommandResult result = you.createNewTPARequest(RequestType.HERE, target);
+            TPAMetrics.Command.TPAHERE.record(result, start);
+
+            if (result != CommandResult.SUCCESS) {
+                sendRequestFailure(you, target, RequestType.HERE, result);
                 return 0;
+            }
+
+            you.sendMessage(fromLang("tpa4fabric.message.requester.tpahere", target.name));
+            target.sendMessage(fromLang("tpa4fabric.message.receiver.tpahere", you.name));
+            return 1;
+        }
+
+        long cooldownTicks = you.getCooldownRemainingTicks(CooldownType.TPAHERE);
+        if (cooldownTicks > 0) {
+            TPAMetrics.Command.TPAHERE.record(CommandResult.ON_COOLDOWN, start);
+            you.sendMessage(fromLang("tpa4fabric.message.fail.tpa_on_cooldown", TickScheduler.ticksToSecondsCeil(cooldownTicks)));
+            return 0;
+        }
+
+        ArrayList<TPAPlayerWrapper> sent = new ArrayList<>(them.size());
+        ArrayList<TPAPlayerWrapper> failed = new ArrayList<>();
+        for (TPAPlayerWrapper target : them) {
+            if (you.createNewTPARequest(RequestType.HERE, target, false) == CommandResult.SUCCESS) sent.add(target);
+            else failed.add(target);
+        }
+
+        if (!sent.isEmpty()) you.consumeCooldown(CooldownType.TPAHERE);
+        TPAMetrics.Command.TPAHERE.record(sent.isEmpty() ? CommandResult.IGNORE : CommandResult.SUCCESS, start);
+
+        if (!sent.isEmpty()) {
+            you.sendMessage(fromLang("tpa4fabric.message.requester.tpahere", MCTextUtils.joinNames(sent, target -> target.name)));
+            for (TPAPlayerWrapper target : sent) target.sendMessage(fromLang("tpa4fabric.message.receiver.tpahere", you.name));
+        }
+        if (!failed.isEmpty()) you.sendMessage(fromLang("tpa4fabric.message.fail.tpahere.some", MCTextUtils.joinNames(failed, target -> target.name)));
+
+        return sent.size();
+    }
+
+    private static void sendRequestFailure(TPAPlayerWrapper you, TPAPlayerWrapper them, RequestType type, CommandResult result) {
+        switch (result) {
+            case TPA_SELF:
+                you.sendMessage(fromLang("tpa4fabric.message.error.tpa_to_self"));
+                break;
+
+            case NOT_ALLOWED:
+                you.sendMessage(fromLang("tpa4fabric.message.fail.tpa_not_allowed"));
+                break;
+
+            case ON_COOLDOWN:
+                you.sendMessage(fromLang("tpa4fabric.message.fail.tpa_on_cooldown", TickScheduler.ticksToSecondsCeil(you.getCooldownRemainingTicks(type.cooldownType()))));
+                break;
+
+            case HAS_EXISTING:
+                you.sendMessage(fromLang("tpa4fabric.message.fail.has_existing_tpa"));
+                break;
+
+            case INBOX_FULL:
+                you.sendMessage(fromLang("tpa4fabric.message.fail.inbox_full", them.name));
+                break;
 
             default:
                 TPA4Fabric.LOGGER.error("Unknown command result: " + result);
-                return 0;
+                break;
         }
     }
 
     public int tpaback(
         ServerPlayerEntity executer
     ) {
-        TPAPlayerWrapper you = players.get(executer.getUuidAsString());
+        long start = System.nanoTime();
+        TPAPlayerWrapper you = players.get(executer);
 
-        switch (you.goBackToLastCoordinates().orElse(CommandResult.IGNORE)) {
-            case SUCCESS:
-                you.sendMessage(fromLang("tpa4fabric.message.tpa.back"));
+        CommandResult result = you.goBackToLastCoordinates();
+        TPAMetrics.Command.TPABACK.record(result, start);
+
+        switch (result) {
+            case SUCCESS: // the message is sent once the teleport actually happens
                 return 1;
 
             case NO_PREVIOUS_COORDS:
                 you.sendMessage(fromLang("tpa4fabric.message.fail.no_previous_coordinates"));
                 return 0;
 
+            case ON_COOLDOWN:
+                you.sendMessage(fromLang("tpa4fabric.message.fail.tpa_on_cooldown", TickScheduler.ticksToSecondsCeil(you.getCooldownRemainingTicks(CooldownType.TPABACK))));
+                return 0;
+
             default:
                 return 0;
         }
@@ -126,24 +278,33 @@ public class TPAManager {
 
     public int tpaaccept(
         ServerPlayerEntity executer,
-        ServerPlayerEntity target
+        String fromName
     ) {
-        TPAPlayerWrapper you = players.get(executer.getUuidAsString());
-        TPAPlayerWrapper them = target == null ? null : players.get(target.getUuidAsString());
-        
-        CommandResultWrapper<?> result = you.acceptTPARequest(them);
-        switch (result.result()) {
+        return tpaaccept(players.get(executer), fromName);
+    }
+
+    /**
+     * {@code /tpaaccept} once the player is looked up, also what the benchmarks drive.
+     */
+    public int tpaaccept(
+        TPAPlayerWrapper you,
+        String fromName
+    ) {
+        long start = System.nanoTime();
+        BaseRequest named = fromName == null ? null : RequestIndex.getInstance().findIncoming(you.uuid, fromName);
+        TPAPlayerWrapper them = named == null ? null : named.requester;
+        // a player who is actually called "all" wins over the keyword
+        if (named == null && ALL.equals(fromName)) return tpaacceptAll(you);
+
+        CommandResult result = you.checkIncomingTPARequest(them);
+        if (result == CommandResult.SUCCESS && fromName != null && them == null) result = CommandResult.NO_REQUEST;
+        BaseRequest request = result == CommandResult.SUCCESS ? you.acceptTPARequest(them) : null;
+        TPAMetrics.Command.TPAACCEPT.record(result, start);
+
+        switch (result) {
             case SUCCESS:
-                result.extraData().ifPresentOrElse((d) -> {
-                    TPAPlayerWrapper tmpPlayer = players.get(d);
-
-                    you.sendMessage(fromLang("tpa4fabric.message.receiver.tpa.accept", tmpPlayer.name));
-                    tmpPlayer.sendMessage(fromLang("tpa4fabric.message.requester.tpa.accept", you.name));
-                }, () -> {
-                    you.sendMessage(fromLang("tpa4tabric.message.receiver.tpa.accept", them.name));
-                    them.sendMessage(fromLang("tpa4fabric.message.requester.tpa.accept", you.name));
-                });
-                
+                you.sendMessage(fromLang(request.type.receiverKey("accept"), request.requester.name));
+                request.requester.sendMessage(fromLang(request.type.requesterKey("accept"), you.name));
                 return 1;
 
             case EMPTY_REQUESTS:
@@ -151,7 +312,7 @@ public class TPAManager {
                 return 0;
 
             case NO_REQUEST:
-                you.sendMessage(fromLang("tpa4fabric.message.fail.accept.no_request_from_player", them.name));
+                you.sendMessage(fromLang("tpa4fabric.message.fail.accept.no_request_from_player", fromName));
                 return 0;
 
             case TPA_SELF: // too lazy to account
@@ -162,25 +323,32 @@ public class TPAManager {
 
     public int tpadeny(
         ServerPlayerEntity executer,
-        ServerPlayerEntity target
+        String fromName
     ) {
-        TPAPlayerWrapper you = players.get(executer.getUuidAsString());
-        TPAPlayerWrapper them = target == null ? null : players.get(target.getUuidAsString());
+        return tpadeny(players.get(executer), fromName);
+    }
 
-        CommandResultWrapper<?> result = you.denyTPARequest(them);
+    /**
+     * {@code /tpadeny} once the player is looked up, also what the benchmarks drive.
+     */
+    public int tpadeny(
+        TPAPlayerWrapper you,
+        String fromName
+    ) {
+        long start = System.nanoTime();
+        BaseRequest named = fromName == null ? null : RequestIndex.getInstance().findIncoming(you.uuid, fromName);
+        TPAPlayerWrapper them = named == null ? null : named.requester;
+        if (named == null && ALL.equals(fromName)) return tpadenyAll(you);
 
-        switch (result.result()) {
+        CommandResult result = you.checkIncomingTPARequest(them);
+        if (result == CommandResult.SUCCESS && fromName != null && them == null) result = CommandResult.NO_REQUEST;
+        BaseRequest request = result == CommandResult.SUCCESS ? you.denyTPARequest(them) : null;
+        TPAMetrics.Command.TPADENY.record(result, start);
+
+        switch (result) {
             case SUCCESS:
-                result.extraData().ifPresentOrElse((d) -> {
-                    TPAPlayerWrapper tmpPlayer = players.get(d);
-
-                    you.sendMessage(fromLang("tpa4fabric.message.receiver.tpa.deny", tmpPlayer.name));
-                    tmpPlayer.sendMessage(fromLang("tpa4fabric.message.requester.tpa.deny", you.name));
-                }, () -> {
-                    you.sendMessage(fromLang("tpa4tabric.message.receiver.tpa.deny", them.name));
-                    them.sendMessage(fromLang("tpa4fabric.message.requester.tpa.deny", you.name));
-                });
-                
+                you.sendMessage(fromLang(request.type.receiverKey("deny"), request.requester.name));
+                request.requester.sendMessage(fromLang(request.type.requesterKey("deny"), you.name));
                 return 1;
 
             case EMPTY_REQUESTS:
@@ -188,7 +356,7 @@ public class TPAManager {
                 return 0;
 
             case NO_REQUEST:
-                you.sendMessage(fromLang("tpa4fabric.message.fail.deny.no_request_from_player", them.name));
+                you.sendMessage(fromLang("tpa4fabric.message.fail.deny.no_request_from_player", fromName));
                 return 0;
 
             case TPA_SELF: // too lazy to account
@@ -197,10 +365,58 @@ public class TPAManager {
         }
     }
 
+    /**
+     * Accepts the whole inbox at once, see {@link TPAPlayerWrapper#acceptAllTPARequests()}.
+     */
+    private int tpaacceptAll(
+        TPAPlayerWrapper you
+    ) {
+        long start = System.nanoTime();
+
+        List<BaseRequest> accepted = you.acceptAllTPARequests();
+        TPAMetrics.Command.TPAACCEPT.record(accepted.isEmpty() ? CommandResult.EMPTY_REQUESTS : CommandResult.SUCCESS, start);
+
+        if (accepted.isEmpty()) {
+            you.sendMessage(fromLang("tpa4fabric.message.fail.empty_requests"));
+            return 0;
+        }
+
+        you.sendMessage(fromLang("tpa4fabric.message.receiver.accept.all", accepted.size(), MCTextUtils.joinNames(accepted, request -> request.requester.name)));
+        for (BaseRequest request : accepted) request.requester.sendMessage(fromLang(request.type.requesterKey("accept"), you.name));
+
+        // whatever is left are /tpahere requests skipped in favour of the group
+        int summonsLeft = RequestIndex.getInstance().getIncoming(you.uuid).size();
+        if (summonsLeft > 0) you.sendMessage(fromLang("tpa4fabric.message.receiver.accept.all.summons_left", summonsLeft));
+
+        return accepted.size();
+    }
+
+    /**
+     * Denies the whole inbox at once, see {@link TPAPlayerWrapper#denyAllTPARequests()}.
+     */
+    private int tpadenyAll(
+        TPAPlayerWrapper you
+    ) {
+        long start = System.nanoTime();
+
+        List<BaseRequest> denied = you.denyAllTPARequests();
+        TPAMetrics.Command.TPADENY.record(denied.isEmpty() ? CommandResult.EMPTY_REQUESTS : CommandResult.SUCCESS, start);
+
+        if (denied.isEmpty()) {
+            you.sendMessage(fromLang("tpa4fabric.message.fail.empty_requests"));
+            return 0;
+        }
+
+        you.sendMessage(fromLang("tpa4fabric.message.receiver.deny.all", denied.size(), MCTextUtils.joinNames(denied, request -> request.requester.name)));
+        for (BaseRequest request : denied) request.requester.sendMessage(fromLang(request.type.requesterKey("deny"), you.name));
+
+        return denied.size();
+    }
+
     public int tpaallow(
         ServerPlayerEntity executer
     ) {
-        TPAPlayerWrapper you = players.get(executer.getUuidAsString());
+        TPAPlayerWrapper you = players.get(executer);
         you.sendMessage(fromLang("tpa4fabric.message.tpa.allow", you.allowsTPARequests()));
 
         return 1;
@@ -210,12 +426,279 @@ public class TPAManager {
         ServerPlayerEntity executer,
         boolean allow
     ) {
-        TPAPlayerWrapper you = players.get(executer.getUuidAsString());
+        long start = System.nanoTime();
+        TPAPlayerWrapper you = players.get(executer);
         you.setAllowTPARequest(allow);
+        if (!allow) RequestIndex.getInstance().cancelIncoming(you);
+        TPAMetrics.Command.TPAALLOW.record(CommandResult.SUCCESS, start);
 
         if (allow) you.sendMessage(fromLang("tpa4fabric.message.tpa.allow.change.on"));
         else you.sendMessage(fromLang("tpa4fabric.message.tpa.allow.change.off"));
         
         return 1;
     }
+
+    public int warp(
+        ServerPlayerEntity executer,
+        String name
+    ) {
+        TPAPlayerWrapper you = players.get(executer);
+        String key = WaypointManager.normalizeName(name);
+        if (key == null) {
+            you.sendMessage(fromLang("tpa4fabric.message.waypoint.invalid_name", WaypointManager.MAX_NAME_LENGTH));
+            return 0;
+        }
+
+        WaypointManager.getInstance().getWarps().get(key).thenAccept(waypoint -> goToWaypoint(you, AuditType.WARP, "warp", key, waypoint));
+        return 1;
+    }
+
+    public int setwarp(
+        ServerPlayerEntity executer,
+        String name
+    ) {
+        TPAPlayerWrapper you = players.get(executer);
+        String key = WaypointManager.normalizeName(name);
+        if (key == null) {
+            you.sendMessage(fromLang("tpa4fabric.message.waypoint.invalid_name", WaypointManager.MAX_NAME_LENGTH));
+            return 0;
+        }
+
+        WaypointStore warps = WaypointManager.getInstance().getWarps();
+        Waypoint waypoint = Waypoint.of(you);
+        warps.whenReady(() -> {
+            if (warps.put(key, waypoint)) you.sendMessage(fromLang("tpa4fabric.message.warp.set", key));
+            else you.sendMessage(fromLang("tpa4fabric.message.waypoint.unavailable"));
+        });
+
+        return 1;
+    }
+
+    public int delwarp(
+        ServerPlayerEntity executer,
+        String name
+    ) {
+        TPAPlayerWrapper you = players.get(executer);
+        String key = WaypointManager.normalizeName(name);
+        WaypointStore warps = WaypointManager.getInstance().getWarps();
+
+        warps.whenReady(() -> {
+            if (warps.isFailed()) you.sendMessage(fromLang("tpa4fabric.message.waypoint.unavailable"));
+            else if (key != null && warps.remove(key)) you.sendMessage(fromLang("tpa4fabric.message.warp.delete", key));
+            else you.sendMessage(fromLang("tpa4fabric.message.warp.not_found", name));
+        });
+
+        return 1;
+    }
+
+    public int home(
+        ServerPlayerEntity executer,
+        String name
+    ) {
+        TPAPlayerWrapper you = players.get(executer);
+        String key = WaypointManager.normalizeName(name);
+        if (key == null) {
+            you.sendMessage(fromLang("tpa4fabric.message.waypoint.invalid_name", WaypointManager.MAX_NAME_LENGTH));
+            return 0;
+        }
+
+        WaypointManager.getInstance().getHomes(you.uuid).get(key).thenAccept(waypoint -> goToWaypoint(you, AuditType.HOME, "home", key, waypoint));
+        return 1;
+    }
+
+    public int sethome(
+        ServerPlayerEntity executer,
+        String name
+    ) {
+        TPAPlayerWrapper you = players.get(executer);
+        String key = WaypointManager.normalizeName(name);
+        if (key == null) {
+            you.sendMessage(fromLang("tpa4fabric.message.waypoint.invalid_name", WaypointManager.MAX_NAME_LENGTH));
+            return 0;
+        }
+
+        WaypointStore homes = WaypointManager.getInstance().getHomes(you.uuid);
+        Waypoint waypoint = Waypoint.of(you);
+        homes.whenReady(() -> {
+            int maxHomes = ModConfigManager.loadOrGetConfig().maxHomes();
+            if (!homes.isFailed() && !homes.contains(key) && homes.size() >= maxHomes) {
+                you.sendMessage(fromLang("tpa4fabric.message.home.limit", maxHomes));
+                return;
+            }
+
+            if (homes.put(key, waypoint)) you.sendMessage(fromLang("tpa4fabric.message.home.set", key));
+            else you.sendMessage(fromLang("tpa4fabric.message.waypoint.unavailable"));
+        });
+
+        return 1;
+    }
+
+    public int delhome(
+        ServerPlayerEntity executer,
+        String name
+    ) {
+        TPAPlayerWrapper you = players.get(executer);
+        String key = WaypointManager.normalizeName(name);
+        WaypointStore homes = WaypointManager.getInstance().getHomes(you.uuid);
+
+        homes.whenReady(() -> {
+            if (homes.isFailed()) you.sendMessage(fromLang("tpa4fabric.message.waypoint.unavailable"));
+            else if (key != null && homes.remove(key)) you.sendMessage(fromLang("tpa4fabric.message.home.delete", key));
+            else you.sendMessage(fromLang("tpa4fabric.message.home.not_found", name));
+        });
+
+        return 1;
+    }
+
+    /**
+     * Sends {@code you} to {@code waypoint} after the same warmup an accepted request goes through,
+     * then through the teleport queue. {@code /home} and {@code /warp} share one cooldown.
+     *
+     * @param kind {@code warp} or {@code home}, picks the messages.
+     */
+    private static void goToWaypoint(TPAPlayerWrapper you, AuditType type, String kind, String name, Waypoint waypoint) {
+        if (!you.isAlive()) return;
+
+        if (waypoint == null) {
+            you.sendMessage(fromLang("tpa4fabric.message." + kind + ".not_found", name));
+            return;
+        }
+
+        TeleportParameters params = waypoint.toTeleportParameters(you.getCurrentDimension().getServer());
+        if (params == null) {
+            you.sendMessage(fromLang("tpa4fabric.message.waypoint.dimension_missing", name));
+            return;
+        }
+
+        long cooldown = you.getCooldownRemainingTicks(CooldownType.WAYPOINT);
+        if (cooldown > 0) {
+            you.sendMessage(fromLang("tpa4fabric.message.fail.tpa_on_cooldown", TickScheduler.ticksToSecondsCeil(cooldown)));
+            return;
+        }
+        you.consumeCooldown(CooldownType.WAYPOINT);
+
+        WaypointManager.getInstance().startWarmup(you, params, () -> {
+            long remembered = you.rememberCurrentLocation();
+            you.teleport(params, () -> {
+                AuditJournal.getInstance().record(type, AuditOutcome.TELEPORTED, you, null, waypoint.dimension(), waypoint.x(), waypoint.y(), waypoint.z());
+                you.sendMessage(fromLang("tpa4fabric.message." + kind + ".teleport", name));
+            }, () -> you.forgetLocation(remembered));
+        });
+    }
+
+    public int tpaconfigReload(
+        ServerCommandSource source
+    ) {
+        if (!ModConfigManager.reload()) {
+            source.sendError(prefixed(fromLang("tpa4fabric.message.config.reload.fail")));
+            return 0;
+        }
+
+        source.sendFeedback(() -> prefixed(fromLang("tpa4fabric.message.config.reload")), true);
+        return 1;
+    }
+
+    public int tpaconfigGet(
+        ServerCommandSource source,
+        String key
+    ) {
+        try {
+            String value = ModConfigManager.get(key);
+            source.sendFeedback(() -> prefixed(fromLang("tpa4fabric.message.config.get", key, value)), false);
+            return 1;
+        } catch (IllegalArgumentException e) {
+            source.sendError(prefixed(fromLang("tpa4fabric.message.config.fail", e.getMessage())));
+            return 0;
+        }
+    }
+
+    public int tpaconfigSet(
+        ServerCommandSource source,
+        String key,
+        String value
+    ) {
+        try {
+            ModConfigManager.set(key, value);
+            String newValue = ModConfigManager.get(key);
+            source.sendFeedback(() -> prefixed(fromLang("tpa4fabric.message.config.set", key, newValue)), true);
+            return 1;
+        } catch (IllegalArgumentException e) {
+            source.sendError(prefixed(fromLang("tpa4fabric.message.config.fail", e.getMessage())));
+            return 0;
+        }
+    }
+
+    public int tpametrics(
+        ServerCommandSource source
+    ) {
+        source.sendFeedback(() -> prefixed(fromLang("tpa4fabric.message.metrics.header")), false);
+
+        for (Metric metric : TPAMetrics.getInstance().getMetrics()) {
+            String series = metric.labels.isEmpty() ? metric.name : metric.name + "{" + metric.labels + "}";
+
+            if (metric instanceof Histogram histogram) {
+                if (histogram.getCount() == 0) continue;
+
+                source.sendFeedback(() -> fromLang(
+                    "tpa4fabric.message.metrics.histogram",
+                    series,
+                    histogram.getCount(),
+                    formatMillis(histogram.getQuantileNanos(0.5)),
+                    formatMillis(histogram.getQuantileNanos(0.99))
+                ), false);
+            } else if (metric instanceof Counter counter) {
+                if (counter.get() == 0) continue;
+
+                source.sendFeedback(() -> fromLang("tpa4fabric.message.metrics.value", series, counter.get()), false);
+            } else if (metric instanceof Gauge gauge) {
+                source.sendFeedback(() -> fromLang("tpa4fabric.message.metrics.value", series, gauge.get()), false);
+            }
+        }
+
+        return 1;
+    }
+
+    public int tpaaudit(
+        ServerCommandSource source,
+        String playerName,
+        int count
+    ) {
+        if (!ModConfigManager.loadOrGetConfig().audit()) {
+            source.sendError(prefixed(fromLang("tpa4fabric.message.audit.disabled")));
+            return 0;
+        }
+
+        AuditJournal.getInstance().recent(playerName, count).whenCompleteAsync((records, error) -> {
+            if (error != null) {
+                TPA4Fabric.LOGGER.error("Failed to read the audit journal! " + error.toString());
+                source.sendError(prefixed(fromLang("tpa4fabric.message.audit.fail")));
+                return;
+            }
+
+            if (records.isEmpty()) {
+                source.sendFeedback(() -> prefixed(fromLang("tpa4fabric.message.audit.empty", playerName)), false);
+                return;
+            }
+
+            source.sendFeedback(() -> prefixed(fromLang("tpa4fabric.message.audit.header", records.size(), playerName)), false);
+            for (AuditRecord record : records) {
+                source.sendFeedback(() -> fromLang(
+                    "tpa4fabric.message.audit.entry",
+                    record.formattedTime(),
+                    record.type().name().toLowerCase(Locale.ROOT),
+                    record.outcome().name().toLowerCase(Locale.ROOT),
+                    record.player(),
+                    record.other() == null ? "-" : record.other(),
+                    record.formattedPlace()
+                ), false);
+            }
+        }, source.getServer());
+
+        return 1;
+    }
+
+    private static String formatMillis(long nanos) {
+        if (nanos == Long.MAX_VALUE) return String.format(Locale.ROOT, ">%.0fms", Histogram.MAX_TRACKED_NANOS / 1_000_000.0);
+        return String.format(Locale.ROOT, "<=%.3fms", nanos / 1_000_000.0);
+    }
 }
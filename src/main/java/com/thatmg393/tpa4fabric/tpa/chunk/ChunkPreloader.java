@@ -0,0 +1,126 @@
+package com.thatmg393.tpa4fabric.tpa.chunk;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.concurrent.CompletableFuture;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.server.world.ChunkTicketType;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.ChunkPos;
+
+/**
+ * Requests chunks ahead of time through a chunk ticket and lets the caller know once they are loaded,
+ * so the chunk system loads them in the background instead of the server thread loading them on the spot.
+ * <p>
+ * Completion is checked once per server tick and never blocks, futures are completed on the server thread.
+ * Confined to the server thread.
+ */
+public class ChunkPreloader {
+    private static final ChunkPreloader INSTANCE = new ChunkPreloader();
+
+    public static ChunkPreloader getInstance() {
+        return INSTANCE;
+    }
+
+    public static final ChunkTicketType<ChunkPos> PRELOAD = ChunkTicketType.create("tpa4fabric_preload", Comparator.comparingLong(ChunkPos::toLong));
+    private static final int PRELOAD_RADIUS = 1;
+
+    private final ArrayList<Preload> pending = new ArrayList<>();
+    // tickets of the same type and position are merged, so count them ourselves to not release someone else's
+    private final IdentityHashMap<ServerWorld, Long2IntOpenHashMap> ticketRefCounts = new IdentityHashMap<>();
+
+    private ChunkPreloader() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> tick());
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            pending.clear();
+            ticketRefCounts.clear();
+        });
+    }
+
+    /**
+     * Starts loading the chunks around {@code pos} in {@code world}.
+     * The returned handle keeps them loaded until {@link Preload#release()} is called.
+     */
+    public Preload preload(ServerWorld world, ChunkPos pos) {
+        Preload preload = new Preload(world, pos);
+
+        if (ticketRefCounts.computeIfAbsent(world, w -> new Long2IntOpenHashMap()).addTo(pos.toLong(), 1) == 0)
+            world.getChunkManager().addTicket(PRELOAD, pos, PRELOAD_RADIUS, pos);
+
+        if (isLoaded(world, pos)) preload.future.complete(null);
+        else pending.add(preload);
+
+        return preload;
+    }
+
+    public static boolean isLoaded(ServerWorld world, ChunkPos pos) {
+        return world.getChunkManager().isChunkLoaded(pos.x, pos.z);
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private void release(Preload preload) {
+        Long2IntOpenHashMap refCounts = ticketRefCounts.get(preload.world);
+        if (refCounts == null) return;
+
+        long key = preload.pos.toLong();
+        if (refCounts.addTo(key, -1) <= 1) {
+            refCounts.remove(key);
+            preload.world.getChunkManager().removeTicket(PRELOAD, preload.pos, PRELOAD_RADIUS, preload.pos);
+        }
+    }
+
+    private void tick() {
+        if (pending.isEmpty()) return;
+
+        int i = 0;
+        while (i < pending.size()) {
+            Preload preload = pending.get(i);
+
+            if (!preload.released && isLoaded(preload.world, preload.pos)) preload.future.complete(null);
+
+            if (preload.released || preload.future.isDone()) {
+                int last = pending.size() - 1;
+                pending.set(i, pending.get(last));
+                pending.remove(last);
+            } else i++;
+        }
+    }
+
+    public static class Preload {
+        private final ServerWorld world;
+        private final ChunkPos pos;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private boolean released = false;
+
+        private Preload(ServerWorld world, ChunkPos pos) {
+            this.world = world;
+            this.pos = pos;
+        }
+
+        /**
+         * Completes on the server thread once the chunk is loaded, never completes if released before that.
+         */
+        public CompletableFuture<Void> future() {
+            return future;
+        }
+
+        public boolean isLoaded() {
+            return future.isDone();
+        }
+
+        public void release() {
+            if (released) return;
+            released = true;
+
+            ChunkPreloader.getInstance().release(this);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.thatmg393.tpa4fabric.tpa.cooldown;
+
+import com.thatmg393.tpa4fabric.config.data.ModConfigData;
+
+/**
+ * The commands that are rate limited, each gets its own {@link TokenBucket} per player.
+ */
+public enum CooldownType {
+    TPA,
+    TPAHERE,
+    TPABACK,
+    WAYPOINT;
+
+    public static final CooldownType[] VALUES = values();
+
+    /**
+     * @return Seconds it takes to earn back one use.
+     */
+    public int getRefillSeconds(ModConfigData config) {
+        switch (this) {
+            case TPAHERE: return config.tpaHereCooldown();
+            case TPABACK: return config.tpaBackCooldown();
+            case WAYPOINT: return config.waypointCooldown();
+            case TPA:
+            default: return config.tpaCooldown();
+        }
+    }
+
+    /**
+     * @return Uses that can be spent back to back.
+     */
+    public int getBurst(ModConfigData config) {
+        switch (this) {
+            case TPAHERE: return config.tpaHereCooldownBurst();
+            case TPABACK: return config.tpaBackCooldownBurst();
+            case WAYPOINT: return config.waypointCooldownBurst();
+            case TPA:
+            default: return config.tpaCooldownBurst();
+        }
+    }
+}
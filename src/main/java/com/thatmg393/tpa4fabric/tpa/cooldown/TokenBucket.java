@@ -0,0 +1,75 @@
+package com.thatmg393.tpa4fabric.tpa.cooldown;
+
+/**
+ * A token bucket measured in server ticks: holds up to {@code burst} uses and earns one back every {@code refillTicks}.
+ * <p>
+ * Limits are passed in on every call so a config reload applies right away.
+ * Nothing here allocates, rejecting a spammer costs a few arithmetic operations.
+ */
+public class TokenBucket {
+    private int tokens = -1; // full, whatever the burst is
+    private long lastRefillTick = 0;
+
+    /**
+     * @return Ticks until a use is available, 0 if one is available right now.
+     */
+    public long getRemainingTicks(long now, int burst, long refillTicks) {
+        refill(now, burst, refillTicks);
+        if (tokens > 0) return 0;
+
+        return Math.max(1, lastRefillTick + refillTicks - now);
+    }
+
+    /**
+     * Spends a use if there is one.
+     * 
+     * @return Whether a use was spent.
+     */
+    public boolean tryConsume(long now, int burst, long refillTicks) {
+        refill(now, burst, refillTicks);
+        if (tokens <= 0) return false;
+
+        tokens--;
+        return true;
+    }
+
+    public int getTokens() {
+        return tokens;
+    }
+
+    public long getLastRefillTick() {
+        return lastRefillTick;
+    }
+
+    public void restore(int tokens, long lastRefillTick) {
+        this.tokens = tokens;
+        this.lastRefillTick = lastRefillTick;
+    }
+
+    private void refill(long now, int burst, long refillTicks) {
+        if (tokens < 0 || refillTicks <= 0) {
+            tokens = Math.max(1, burst);
+            lastRefillTick = now;
+            return;
+        }
+
+        // the burst was lowered since, a drained bucket must not come back full
+        tokens = Math.min(tokens, burst);
+
+        if (tokens == burst) {
+            lastRefillTick = now;
+            return;
+        }
+
+        long earned = (now - lastRefillTick) / refillTicks;
+        if (earned <= 0) return;
+
+        if (tokens + earned >= burst) {
+            tokens = burst;
+            lastRefillTick = now;
+        } else {
+            tokens += (int) earned;
+            lastRefillTick += earned * refillTicks;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.thatmg393.tpa4fabric.tpa.display;
+
+import static com.thatmg393.tpa4fabric.utils.MCTextUtils.fromLang;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+import com.thatmg393.tpa4fabric.utils.scheduler.TickScheduler;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.entity.boss.BossBar;
+import net.minecraft.entity.boss.ServerBossBar;
+import net.minecraft.text.MutableText;
+import net.minecraft.text.Text;
+
+/**
+ * Shows the remaining warmup of every active teleport to everyone involved, a group warmup shares one countdown.
+ * <p>
+ * All countdowns are updated in one pass at the end of each tick and a packet is only sent when
+ * the shown amount of seconds changes. Confined to the server thread.
+ */
+public class CountdownDisplay {
+    private static final CountdownDisplay INSTANCE = new CountdownDisplay();
+
+    public static CountdownDisplay getInstance() {
+        return INSTANCE;
+    }
+
+    private final ArrayList<Countdown> countdowns = new ArrayList<>();
+
+    private CountdownDisplay() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> tick());
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            for (Countdown countdown : countdowns) countdown.hide();
+            countdowns.clear();
+        });
+    }
+
+    /**
+     * Starts showing a countdown of {@code durationTicks} to both players until it runs out or is removed.
+     */
+    public Countdown show(TPAPlayerWrapper requester, TPAPlayerWrapper receiver, long durationTicks) {
+        return show(List.of(requester, receiver), durationTicks);
+    }
+
+    /**
+     * Starts showing a countdown of {@code durationTicks} to every viewer until it runs out or is removed.
+     */
+    public Countdown show(Collection<TPAPlayerWrapper> viewers, long durationTicks) {
+        Countdown countdown = new Countdown(
+            ModConfigManager.loadOrGetConfig().countdownDisplayMode(),
+            viewers,
+            TickScheduler.getInstance().getCurrentTick() + durationTicks,
+            durationTicks
+        );
+        countdowns.add(countdown);
+
+        return countdown;
+    }
+
+    private void tick() {
+        if (countdowns.isEmpty()) return;
+
+        long now = TickScheduler.getInstance().getCurrentTick();
+
+        int i = 0;
+        while (i < countdowns.size()) {
+            Countdown countdown = countdowns.get(i);
+
+            if (countdown.active && countdown.endTick > now) countdown.update(countdown.endTick - now);
+            else countdown.hide();
+
+            if (!countdown.active) {
+                int last = countdowns.size() - 1;
+                countdowns.set(i, countdowns.get(last));
+                countdowns.remove(last);
+            } else i++;
+        }
+    }
+
+    public static enum Mode {
+        CHAT,
+        ACTION_BAR,
+        BOSS_BAR
+    }
+
+    public static class Countdown {
+        private final Mode mode;
+        private final ArrayList<TPAPlayerWrapper> viewers;
+        private final long endTick;
+        private final long durationTicks;
+
+        private ServerBossBar bossBar = null;
+        private long shownSeconds = -1;
+        private boolean active = true;
+
+        private Countdown(Mode mode, Collection<TPAPlayerWrapper> viewers, long endTick, long durationTicks) {
+            this.mode = mode;
+            this.viewers = new ArrayList<>(viewers);
+            this.endTick = endTick;
+            this.durationTicks = durationTicks;
+        }
+
+        private void update(long remainingTicks) {
+            long seconds = (remainingTicks + TickScheduler.TICKS_PER_SECOND - 1) / TickScheduler.TICKS_PER_SECOND;
+            if (seconds == shownSeconds) return;
+            shownSeconds = seconds;
+
+            MutableText message = fromLang("tpa4fabric.message.teleport.countdown", seconds);
+            switch (mode) {
+                case CHAT:
+                    for (TPAPlayerWrapper viewer : viewers) viewer.sendMessage(message);
+                break;
+
+                case ACTION_BAR:
+                    for (TPAPlayerWrapper viewer : viewers) viewer.sendActionBar(message);
+                break;
+
+                case BOSS_BAR:
+                    if (bossBar == null) {
+                        bossBar = new ServerBossBar(message, BossBar.Color.YELLOW, BossBar.Style.PROGRESS);
+                        for (TPAPlayerWrapper viewer : viewers) viewer.showBossBar(bossBar);
+                    } else bossBar.setName(message);
+
+                    bossBar.setPercent((float) remainingTicks / durationTicks);
+                break;
+            }
+        }
+
+        private void hide() {
+            active = false;
+
+            if (bossBar != null) {
+                bossBar.clearPlayers();
+                bossBar = null;
+            } else if (mode == Mode.ACTION_BAR && shownSeconds != -1) {
+                for (TPAPlayerWrapper viewer : viewers) viewer.sendActionBar(Text.empty());
+            }
+        }
+
+        /**
+         * Stops showing this countdown to {@code viewer} alone, for someone dropping out of a group warmup.
+         */
+        public void removeViewer(TPAPlayerWrapper viewer) {
+            if (!viewers.remove(viewer)) return;
+
+            if (bossBar != null) viewer.hideBossBar(bossBar);
+            else if (mode == Mode.ACTION_BAR && shownSeconds != -1) viewer.sendActionBar(Text.empty());
+        }
+
+        /**
+         * Stops showing this countdown, it is cleared on the next tick.
+         */
+        public void remove() {
+            active = false;
+        }
+    }
+}
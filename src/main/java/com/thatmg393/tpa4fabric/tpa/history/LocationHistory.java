@@ -0,0 +1,333 @@
+package com.thatmg393.tpa4fabric.tpa.history;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import com.thatmg393.tpa4fabric.TPA4Fabric;
+import com.thatmg393.tpa4fabric.persistence.DataStorage;
+import com.thatmg393.tpa4fabric.tpa.wrapper.models.Coordinates;
+import com.thatmg393.tpa4fabric.tpa.wrapper.models.TeleportParameters;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.world.World;
+
+/**
+ * A bounded ring buffer of a player's previous locations, newest on top, backing {@code /tpaback}.
+ * <p>
+ * Entries are kept as plain primitives and a dimension key, never as a live world.
+ * Every change is appended to {@code history/<uuid>.bin} on the {@link DataStorage} thread, and the
+ * file is rewritten from memory once it holds too many stale records.
+ * The file is only read once the player joins, in the background. Nothing is written until it is merged,
+ * then the entries still left from before are appended, so an early removal never pops an entry of the file.
+ * <p>
+ * Confined to the server thread.
+ */
+public class LocationHistory {
+    public static final byte KIND_TELEPORT = 0;
+    public static final byte KIND_DEATH = 1;
+
+    private static final byte RECORD_PUSH = 1;
+    private static final byte RECORD_POP = 2;
+
+    // rewrite the file once it holds this many times more records than the ring can hold
+    private static final int COMPACT_FACTOR = 4;
+
+    private final UUID owner;
+    private final boolean persistent;
+    private final int capacity;
+
+    private final double[] xs, ys, zs;
+    private final long[] timestamps;
+    private final byte[] kinds;
+    private final RegistryKey<World>[] dimensions;
+
+    private int head = 0; // where the next entry goes
+    private int size = 0;
+    private int recordsOnDisk = 0;
+    private boolean merged = false;
+
+    @SuppressWarnings("unchecked")
+    private LocationHistory(UUID owner, int capacity, boolean persistent) {
+        this.owner = owner;
+        this.persistent = persistent;
+        this.capacity = Math.max(1, capacity);
+
+        this.xs = new double[this.capacity];
+        this.ys = new double[this.capacity];
+        this.zs = new double[this.capacity];
+        this.timestamps = new long[this.capacity];
+        this.kinds = new byte[this.capacity];
+        this.dimensions = (RegistryKey<World>[]) new RegistryKey[this.capacity];
+    }
+
+    public LocationHistory(UUID owner, int capacity) {
+        this(owner, capacity, true);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The timestamp of the new entry, to take it back with {@link #removeNewest}.
+     */
+    public long push(byte kind, RegistryKey<World> dimension, double x, double y, double z) {
+        long timestamp = System.currentTimeMillis();
+        pushInternal(kind, dimension, x, y, z, timestamp);
+
+        if (persistent && merged) {
+            DataStorage.getInstance().execute(() -> appendPush(kind, dimension, x, y, z, timestamp));
+            recordWritten();
+        }
+
+        return timestamp;
+    }
+
+    /**
+     * Removes the newest entry if it is still the one with {@code timestamp}, does nothing if something was pushed on top of it.
+     */
+    public void removeNewest(long timestamp) {
+        if (size == 0 || timestamps[newestIndex()] != timestamp) return;
+
+        popInternal();
+        if (persistent && merged) {
+            DataStorage.getInstance().execute(this::appendPop);
+            recordWritten();
+        }
+    }
+
+    /**
+     * @return The timestamp of the newest entry, -1 if there is none.
+     */
+    public long newestTimestamp() {
+        return size == 0 ? -1 : timestamps[newestIndex()];
+    }
+
+    /**
+     * Removes and returns the newest entry, {@code null} if there is none or its dimension no longer exists.
+     */
+    public TeleportParameters pop(MinecraftServer server) {
+        if (size == 0) return null;
+
+        int index = newestIndex();
+        TeleportParameters params = materialize(server, index);
+        popInternal();
+
+        if (persistent && merged) {
+            DataStorage.getInstance().execute(this::appendPop);
+            recordWritten();
+        }
+
+        return params;
+    }
+
+    /**
+     * Returns the newest entry without removing it.
+     */
+    public TeleportParameters peek(MinecraftServer server) {
+        return size == 0 ? null : materialize(server, newestIndex());
+    }
+
+    /**
+     * Reads the history file in the background and puts whatever was pushed in the meantime on top of it.
+     */
+    public void loadAsync(MinecraftServer server) {
+        DataStorage.getInstance().execute(() -> {
+            LocationHistory loaded = read();
+            server.execute(() -> merge(loaded));
+        });
+    }
+
+    private int newestIndex() {
+        return (head - 1 + capacity) % capacity;
+    }
+
+    private TeleportParameters materialize(MinecraftServer server, int index) {
+        ServerWorld world = server.getWorld(dimensions[index]);
+        if (world == null) return null;
+
+        return new TeleportParameters(world, new Coordinates(xs[index], ys[index], zs[index]));
+    }
+
+    private void pushInternal(byte kind, RegistryKey<World> dimension, double x, double y, double z, long timestamp) {
+        xs[head] = x;
+        ys[head] = y;
+        zs[head] = z;
+        kinds[head] = kind;
+        timestamps[head] = timestamp;
+        dimensions[head] = dimension;
+
+        head = (head + 1) % capacity;
+        if (size < capacity) size++;
+    }
+
+    private void popInternal() {
+        head = newestIndex();
+        dimensions[head] = null;
+        size--;
+    }
+
+    private void merge(LocationHistory loaded) {
+        // entries pushed before the file was read are newer than anything in it
+        int pendingSize = size;
+        int oldest = (head - size + capacity) % capacity;
+
+        LocationHistory combined = new LocationHistory(owner, capacity, false);
+        for (int i = 0; i < loaded.size; i++) {
+            int index = (loaded.head - loaded.size + i + loaded.capacity) % loaded.capacity;
+            combined.pushInternal(loaded.kinds[index], loaded.dimensions[index], loaded.xs[index], loaded.ys[index], loaded.zs[index], loaded.timestamps[index]);
+        }
+        for (int i = 0; i < pendingSize; i++) {
+            int index = (oldest + i) % capacity;
+            combined.pushInternal(kinds[index], dimensions[index], xs[index], ys[index], zs[index], timestamps[index]);
+
+            if (persistent) {
+                byte kind = kinds[index];
+                RegistryKey<World> dimension = dimensions[index];
+                double x = xs[index], y = ys[index], z = zs[index];
+                long timestamp = timestamps[index];
+                DataStorage.getInstance().execute(() -> appendPush(kind, dimension, x, y, z, timestamp));
+            }
+        }
+
+        System.arraycopy(combined.xs, 0, xs, 0, capacity);
+        System.arraycopy(combined.ys, 0, ys, 0, capacity);
+        System.arraycopy(combined.zs, 0, zs, 0, capacity);
+        System.arraycopy(combined.kinds, 0, kinds, 0, capacity);
+        System.arraycopy(combined.timestamps, 0, timestamps, 0, capacity);
+        System.arraycopy(combined.dimensions, 0, dimensions, 0, capacity);
+        head = combined.head;
+        size = combined.size;
+
+        merged = true;
+        recordsOnDisk += loaded.recordsOnDisk + (persistent ? pendingSize : 0);
+        if (recordsOnDisk > capacity * COMPACT_FACTOR) compact();
+    }
+
+    private void recordWritten() {
+        if (++recordsOnDisk > capacity * COMPACT_FACTOR) compact();
+    }
+
+    private void compact() {
+        LocationHistory snapshot = new LocationHistory(owner, capacity, false);
+        for (int i = 0; i < size; i++) {
+            int index = (head - size + i + capacity) % capacity;
+            snapshot.pushInternal(kinds[index], dimensions[index], xs[index], ys[index], zs[index], timestamps[index]);
+        }
+
+        recordsOnDisk = size;
+        DataStorage.getInstance().execute(snapshot::rewrite);
+    }
+
+    /* ==== Everything below runs on the DataStorage thread ==== */
+
+    private Path getPath() {
+        return DataStorage.getInstance().resolve("history", owner + ".bin");
+    }
+
+    private DataOutputStream openAppend() throws IOException {
+        Path path = getPath();
+        Files.createDirectories(path.getParent());
+
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+            path, StandardOpenOption.CREATE, StandardOpenOption.APPEND
+        )));
+    }
+
+    private static void writePush(DataOutputStream out, byte kind, RegistryKey<World> dimension, double x, double y, double z, long timestamp) throws IOException {
+        out.writeByte(RECORD_PUSH);
+        out.writeByte(kind);
+        out.writeLong(timestamp);
+        out.writeDouble(x);
+        out.writeDouble(y);
+        out.writeDouble(z);
+        out.writeUTF(dimension.getValue().toString());
+    }
+
+    private void appendPush(byte kind, RegistryKey<World> dimension, double x, double y, double z, long timestamp) {
+        try (DataOutputStream out = openAppend()) {
+            writePush(out, kind, dimension, x, y, z, timestamp);
+        } catch (IOException e) {
+            TPA4Fabric.LOGGER.error("Failed to save the location history of " + owner + "! " + e.toString());
+        }
+    }
+
+    private void appendPop() {
+        try (DataOutputStream out = openAppend()) {
+            out.writeByte(RECORD_POP);
+        } catch (IOException e) {
+            TPA4Fabric.LOGGER.error("Failed to save the location history of " + owner + "! " + e.toString());
+        }
+    }
+
+    private void rewrite() {
+        Path path = getPath();
+        Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            Files.createDirectories(path.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpPath)))) {
+                for (int i = 0; i < size; i++) {
+                    int index = (head - size + i + capacity) % capacity;
+                    writePush(out, kinds[index], dimensions[index], xs[index], ys[index], zs[index], timestamps[index]);
+                }
+            }
+
+            Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            TPA4Fabric.LOGGER.error("Failed to compact the location history of " + owner + "! " + e.toString());
+        }
+    }
+
+    private LocationHistory read() {
+        LocationHistory loaded = new LocationHistory(owner, capacity, false);
+        Path path = getPath();
+        if (!Files.exists(path)) return loaded;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                byte record;
+                try {
+                    record = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                loaded.recordsOnDisk++;
+                if (record == RECORD_POP) {
+                    if (loaded.size > 0) loaded.popInternal();
+                    continue;
+                }
+
+                byte kind = in.readByte();
+                long timestamp = in.readLong();
+                double x = in.readDouble(), y = in.readDouble(), z = in.readDouble();
+                RegistryKey<World> dimension = RegistryKey.of(RegistryKeys.WORLD, Identifier.of(in.readUTF()));
+
+                loaded.pushInternal(kind, dimension, x, y, z, timestamp);
+            }
+        } catch (IOException e) {
+            // most likely a record cut in half by a crash, keep what was read before it
+            TPA4Fabric.LOGGER.warn("Location history of " + owner + " is damaged, using what could be read. " + e.toString());
+        }
+
+        return loaded;
+    }
+}
@@ -0,0 +1,138 @@
+package com.thatmg393.tpa4fabric.tpa.landing;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+
+/**
+ * A private copy of the block states of one chunk around a height, plus the surface of the target column
+ * taken from the heightmap. Taken on the server thread, read on any thread.
+ */
+class ChunkSnapshot {
+    /** How far above and below the target a spot is looked for. */
+    static final int SEARCH_HEIGHT = 16;
+
+    private final int chunkX;
+    private final int chunkZ;
+    private final int minY;
+    private final int maxY;
+    private final int firstSectionY;
+    private final PalettedContainer<BlockState>[] sections;
+
+    private final int surfaceY;
+    private final BlockState[] surfaceStates; // ground, feet and head at surfaceY
+
+    @SuppressWarnings("unchecked")
+    private ChunkSnapshot(WorldChunk chunk, BlockPos around, int minY, int maxY) {
+        this.chunkX = chunk.getPos().x;
+        this.chunkZ = chunk.getPos().z;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.firstSectionY = ChunkSectionPos.getSectionCoord(minY);
+
+        int lastSectionY = ChunkSectionPos.getSectionCoord(maxY);
+        this.sections = new PalettedContainer[lastSectionY - firstSectionY + 1];
+
+        ChunkSection[] chunkSections = chunk.getSectionArray();
+        for (int sectionY = firstSectionY; sectionY <= lastSectionY; sectionY++) {
+            ChunkSection section = chunkSections[chunk.sectionCoordToIndex(sectionY)];
+            // empty sections stay null and read as air
+            if (!section.isEmpty()) sections[sectionY - firstSectionY] = section.getBlockStateContainer().copy();
+        }
+
+        // first free block above the highest one that blocks motion
+        this.surfaceY = chunk.getHeightmap(Heightmap.Type.MOTION_BLOCKING).get(around.getX() & 15, around.getZ() & 15);
+        BlockPos surface = new BlockPos(around.getX(), surfaceY, around.getZ());
+        this.surfaceStates = new BlockState[] {
+            chunk.getBlockState(surface.down()),
+            chunk.getBlockState(surface),
+            chunk.getBlockState(surface.up())
+        };
+    }
+
+    /**
+     * @return A snapshot of the chunk {@code around} is in, covering {@code height} blocks above and below it
+     *         plus the surface, {@code null} if that chunk is not loaded.
+     */
+    static ChunkSnapshot capture(ServerWorld world, BlockPos around, int height) {
+        WorldChunk chunk = world.getChunkManager().getWorldChunk(ChunkSectionPos.getSectionCoord(around.getX()), ChunkSectionPos.getSectionCoord(around.getZ()));
+        if (chunk == null) return null;
+
+        int minY = Math.max(world.getBottomY(), around.getY() - height - 1);
+        int maxY = Math.min(world.getTopYInclusive(), around.getY() + height + 1);
+        if (minY > maxY) {
+            // the target is out of the world, only the surface is of any use
+            minY = world.getBottomY();
+            maxY = world.getBottomY();
+        }
+
+        return new ChunkSnapshot(chunk, around, minY, maxY);
+    }
+
+    /**
+     * Looks for a spot in the columns around {@code target} (within this chunk) that is at most {@code radius} away,
+     * nearest column first and closest height first. Falls back to the surface of the target column,
+     * which also covers targets in the void.
+     * <p>
+     * {@code target} must be in the column this snapshot was captured around.
+     * 
+     * @return Where the player's feet go, {@code null} if nothing safe was found.
+     */
+    BlockPos findSpot(BlockPos target, int radius) {
+        int targetX = target.getX() & 15;
+        int targetZ = target.getZ() & 15;
+
+        for (int ring = 0; ring <= radius; ring++) {
+            for (int dz = -ring; dz <= ring; dz++) {
+                for (int dx = -ring; dx <= ring; dx++) {
+                    if (Math.max(Math.abs(dx), Math.abs(dz)) != ring) continue;
+
+                    int x = targetX + dx, z = targetZ + dz;
+                    if (x < 0 || x > 15 || z < 0 || z > 15) continue;
+
+                    for (int step = 0; step <= SEARCH_HEIGHT * 2; step++) {
+                        // 0, +1, -1, +2, -2, ...
+                        int y = target.getY() + ((step & 1) == 0 ? -(step >> 1) : (step + 1) >> 1);
+                        if (isSafe(x, y, z)) return toWorld(x, y, z);
+                    }
+                }
+            }
+        }
+
+        if (SafeLandingResolver.isSafe(surfaceStates[0], surfaceStates[1], surfaceStates[2]))
+            return toWorld(targetX, surfaceY, targetZ);
+
+        return null;
+    }
+
+    private boolean isSafe(int x, int y, int z) {
+        BlockState ground = getState(x, y - 1, z);
+        BlockState feet = getState(x, y, z);
+        BlockState head = getState(x, y + 1, z);
+        if (ground == null || feet == null || head == null) return false;
+
+        return SafeLandingResolver.isSafe(ground, feet, head);
+    }
+
+    /**
+     * @return The state at the chunk local position, {@code null} if it was not captured.
+     */
+    private BlockState getState(int x, int y, int z) {
+        if (y < minY || y > maxY) return null;
+
+        PalettedContainer<BlockState> section = sections[ChunkSectionPos.getSectionCoord(y) - firstSectionY];
+        if (section == null) return Blocks.AIR.getDefaultState();
+
+        return section.get(x, y & 15, z);
+    }
+
+    private BlockPos toWorld(int x, int y, int z) {
+        return new BlockPos((chunkX << 4) + x, y, (chunkZ << 4) + z);
+    }
+}
@@ -0,0 +1,167 @@
+package com.thatmg393.tpa4fabric.tpa.landing;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.thatmg393.tpa4fabric.TPA4Fabric;
+import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.config.data.ModConfigData;
+import com.thatmg393.tpa4fabric.metrics.TPAMetrics;
+import com.thatmg393.tpa4fabric.tpa.wrapper.models.Coordinates;
+import com.thatmg393.tpa4fabric.tpa.wrapper.models.TeleportParameters;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.registry.tag.BlockTags;
+import net.minecraft.registry.tag.FluidTags;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Util;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.shape.VoxelShape;
+import net.minecraft.world.EmptyBlockView;
+
+/**
+ * Moves teleport destinations off lava, out of walls and out of the void.
+ * <p>
+ * The target itself is checked on the server thread by reading the three blocks a player occupies and stands on,
+ * a partial block the feet rest on top of counts as what they stand on.
+ * If it isn't safe, the last spot found in the same chunk section is tried the same way, and only then is the
+ * destination chunk snapshotted and searched on a worker thread. Nothing here scans the world on the tick.
+ * <p>
+ * A cached spot is re-validated every time it is handed out, so a block update that made it unsafe simply evicts it.
+ * Confined to the server thread, futures complete on it.
+ */
+public class SafeLandingResolver {
+    private static final SafeLandingResolver INSTANCE = new SafeLandingResolver();
+
+    public static SafeLandingResolver getInstance() {
+        return INSTANCE;
+    }
+
+    private static final int CACHE_SIZE = 512;
+    // positions sent by the client are not exactly on top of the collision box
+    private static final double STANDING_EPSILON = 1.0E-5;
+
+    private final IdentityHashMap<ServerWorld, LinkedHashMap<Long, BlockPos>> spotCache = new IdentityHashMap<>();
+
+    private SafeLandingResolver() {
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> spotCache.clear());
+    }
+
+    /**
+     * Finds a safe spot close to {@code target}, its chunk must be loaded.
+     * 
+     * @return Completes on the server thread with the adjusted destination, or {@code target} itself if it is safe,
+     *         safe landing is disabled or nothing better was found.
+     */
+    public CompletableFuture<TeleportParameters> resolve(TeleportParameters target) {
+        ModConfigData config = ModConfigManager.loadOrGetConfig();
+        if (!config.safeLanding()) return CompletableFuture.completedFuture(target);
+
+        ServerWorld world = target.dimension();
+        BlockPos feet = getFeet(world, target.coordinates());
+        if (isSafe(world, feet)) return CompletableFuture.completedFuture(target);
+
+        LinkedHashMap<Long, BlockPos> cache = getCache(world);
+        long sectionKey = ChunkSectionPos.toLong(feet);
+        BlockPos cached = cache.get(sectionKey);
+        if (cached != null) {
+            if (isSafe(world, cached)) {
+                TPAMetrics.SAFE_LANDING_CACHE_HITS.increment();
+                return CompletableFuture.completedFuture(moveTo(target, cached));
+            }
+
+            cache.remove(sectionKey);
+        }
+
+        ChunkSnapshot snapshot = ChunkSnapshot.capture(world, feet, ChunkSnapshot.SEARCH_HEIGHT);
+        if (snapshot == null) return CompletableFuture.completedFuture(target);
+
+        TPAMetrics.SAFE_LANDING_SEARCHES.increment();
+        int radius = config.safeLandingRadius();
+
+        return CompletableFuture
+            .supplyAsync(() -> snapshot.findSpot(feet, radius), Util.getMainWorkerExecutor())
+            .thenApplyAsync(spot -> {
+                if (spot == null) return target;
+
+                getCache(world).put(sectionKey, spot);
+                return moveTo(target, spot);
+            }, world.getServer())
+            .exceptionally(e -> {
+                TPA4Fabric.LOGGER.error("Safe landing search failed, teleporting to the exact destination! " + e.toString());
+                return target;
+            });
+    }
+
+    private LinkedHashMap<Long, BlockPos> getCache(ServerWorld world) {
+        return spotCache.computeIfAbsent(world, w -> new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BlockPos> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        });
+    }
+
+    private static TeleportParameters moveTo(TeleportParameters target, BlockPos spot) {
+        return new TeleportParameters(target.dimension(), new Coordinates(spot.getX() + 0.5, spot.getY(), spot.getZ() + 0.5));
+    }
+
+    /**
+     * The block the feet at {@code coordinates} are in. Someone standing on a slab, path, farmland, carpet and the like
+     * has their feet inside that block, it counts as their ground and the feet go one block up.
+     */
+    private static BlockPos getFeet(ServerWorld world, Coordinates coordinates) {
+        BlockPos feet = BlockPos.ofFloored(coordinates.x(), coordinates.y(), coordinates.z());
+        double above = coordinates.y() - feet.getY();
+
+        return above > 0 && isStandingOn(world.getBlockState(feet), above) ? feet.up() : feet;
+    }
+
+    private static boolean isSafe(ServerWorld world, BlockPos feet) {
+        if (feet.getY() <= world.getBottomY() || feet.getY() + 1 > world.getTopYInclusive()) return false;
+
+        return isSafe(world.getBlockState(feet.down()), world.getBlockState(feet), world.getBlockState(feet.up()));
+    }
+
+    /**
+     * Only looks at the states themselves, so it is safe to call off the server thread on snapshotted states.
+     */
+    static boolean isSafe(BlockState ground, BlockState feet, BlockState head) {
+        return isSolidGround(ground) && isPassable(feet) && isPassable(head);
+    }
+
+    /**
+     * @param above How far above the bottom of {@code state}'s block the feet are.
+     * @return Whether {@code state} is a partial block whose top the feet rest on, rather than are stuck in.
+     */
+    static boolean isStandingOn(BlockState state, double above) {
+        VoxelShape shape = state.getCollisionShape(EmptyBlockView.INSTANCE, BlockPos.ORIGIN);
+        return !shape.isEmpty() && shape.getMax(Direction.Axis.Y) <= above + STANDING_EPSILON;
+    }
+
+    private static boolean isSolidGround(BlockState state) {
+        return !state.getCollisionShape(EmptyBlockView.INSTANCE, BlockPos.ORIGIN).isEmpty() && !isHarmful(state);
+    }
+
+    private static boolean isPassable(BlockState state) {
+        return state.getCollisionShape(EmptyBlockView.INSTANCE, BlockPos.ORIGIN).isEmpty() && !isHarmful(state);
+    }
+
+    private static boolean isHarmful(BlockState state) {
+        return state.getFluidState().isIn(FluidTags.LAVA)
+            || state.isIn(BlockTags.FIRE)
+            || state.isIn(BlockTags.CAMPFIRES)
+            || state.isOf(Blocks.MAGMA_BLOCK)
+            || state.isOf(Blocks.CACTUS)
+            || state.isOf(Blocks.SWEET_BERRY_BUSH)
+            || state.isOf(Blocks.WITHER_ROSE)
+            || state.isOf(Blocks.POWDER_SNOW)
+            || state.isOf(Blocks.POINTED_DRIPSTONE);
+    }
+}
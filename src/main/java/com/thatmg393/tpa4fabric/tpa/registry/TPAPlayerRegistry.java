@@ -0,0 +1,70 @@
+package com.thatmg393.tpa4fabric.tpa.registry;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+
+import net.minecraft.server.network.ServerPlayerEntity;
+
+/**
+ * Every online player known to the TPA, indexed both by {@link UUID} and by name.
+ * <p>
+ * Only the server thread registers and unregisters players, but lookups are safe from any thread
+ * (background writers, metrics, ...), both indexes are concurrent maps and stay consistent per player.
+ */
+public class TPAPlayerRegistry {
+    private final ConcurrentHashMap<UUID, TPAPlayerWrapper> byUuid = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TPAPlayerWrapper> byName = new ConcurrentHashMap<>();
+
+    private final Collection<TPAPlayerWrapper> view = Collections.unmodifiableCollection(byUuid.values());
+    private final AtomicInteger version = new AtomicInteger();
+
+    public TPAPlayerWrapper register(ServerPlayerEntity player) {
+        TPAPlayerWrapper wrapper = byUuid.computeIfAbsent(player.getUuid(), uuid -> new TPAPlayerWrapper(player));
+        byName.put(wrapper.name, wrapper);
+        version.incrementAndGet();
+
+        return wrapper;
+    }
+
+    public TPAPlayerWrapper unregister(UUID uuid) {
+        TPAPlayerWrapper wrapper = byUuid.remove(uuid);
+        if (wrapper != null) {
+            byName.remove(wrapper.name, wrapper);
+            version.incrementAndGet();
+        }
+
+        return wrapper;
+    }
+
+    public TPAPlayerWrapper get(UUID uuid) {
+        return byUuid.get(uuid);
+    }
+
+    public TPAPlayerWrapper get(ServerPlayerEntity player) {
+        return byUuid.get(player.getUuid());
+    }
+
+    public TPAPlayerWrapper getByName(String name) {
+        return byName.get(name);
+    }
+
+    public Collection<TPAPlayerWrapper> getAll() {
+        return view;
+    }
+
+    /**
+     * @return A number that changes every time someone is registered or unregistered, for caches of the player list.
+     */
+    public int getVersion() {
+        return version.get();
+    }
+
+    public int size() {
+        return byUuid.size();
+    }
+}
@@ -0,0 +1,57 @@
+package com.thatmg393.tpa4fabric.tpa.registry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+
+/**
+ * The names one player can send a request to, everyone else online, sorted for tab completion.
+ * <p>
+ * Only rebuilt when {@link TPAPlayerRegistry#getVersion()} moved since the last time,
+ * so typing a name costs a binary search plus the matches instead of a pass over the whole server.
+ * Confined to the server thread.
+ */
+public class TargetNameCache {
+    private static final String[] NO_NAMES = new String[0];
+
+    private String[] names = NO_NAMES;
+    private String[] lowerNames = NO_NAMES; // sorted, same order as names
+    private int version = -1;
+
+    /**
+     * Suggests the names of the players in {@code registry} other than {@code owner} that start with what was typed so far.
+     */
+    public CompletableFuture<Suggestions> suggest(TPAPlayerRegistry registry, TPAPlayerWrapper owner, SuggestionsBuilder builder) {
+        if (version != registry.getVersion()) rebuild(registry, owner);
+
+        String prefix = builder.getRemainingLowerCase();
+        int index = Arrays.binarySearch(lowerNames, prefix);
+        if (index < 0) index = -index - 1;
+
+        for (; index < lowerNames.length && lowerNames[index].startsWith(prefix); index++) builder.suggest(names[index]);
+        return builder.buildFuture();
+    }
+
+    private void rebuild(TPAPlayerRegistry registry, TPAPlayerWrapper owner) {
+        // read the version first, a join while we copy only means one more rebuild
+        version = registry.getVersion();
+
+        ArrayList<TPAPlayerWrapper> others = new ArrayList<>(registry.size());
+        for (TPAPlayerWrapper player : registry.getAll()) {
+            if (player != owner) others.add(player);
+        }
+        others.sort((a, b) -> a.name.toLowerCase(Locale.ROOT).compareTo(b.name.toLowerCase(Locale.ROOT)));
+
+        names = new String[others.size()];
+        lowerNames = new String[others.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = others.get(i).name;
+            lowerNames[i] = names[i].toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.thatmg393.tpa4fabric.tpa.request;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+
+import com.thatmg393.tpa4fabric.tpa.request.base.BaseRequest;
+import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+
+/**
+ * The pending requests of one receiver, oldest first, bounded by {@code tpaRequestLimit}.
+ * Only created once the receiver gets their first request and starts out small.
+ */
+public class RequestInbox {
+    private final LinkedHashMap<UUID, BaseRequest> requests = new LinkedHashMap<>(4);
+    private final Collection<BaseRequest> view = Collections.unmodifiableCollection(requests.values());
+
+    public void put(BaseRequest request) {
+        requests.put(request.requester.uuid, request);
+    }
+
+    public BaseRequest get(UUID requester) {
+        return requests.get(requester);
+    }
+
+    public BaseRequest remove(UUID requester) {
+        return requests.remove(requester);
+    }
+
+    public BaseRequest oldest() {
+        return requests.isEmpty() ? null : requests.values().iterator().next();
+    }
+
+    public boolean isEmpty() {
+        return requests.isEmpty();
+    }
+
+    public int size() {
+        return requests.size();
+    }
+
+    public Collection<BaseRequest> getAll() {
+        return view;
+    }
+
+    /**
+     * Picks the request to drop so one from {@code newRequester} fits.
+     * 
+     * @return The request to evict, {@code null} if the new one should be rejected instead.
+     */
+    public BaseRequest selectVictim(LimitPolicy policy, TPAPlayerWrapper newRequester) {
+        switch (policy) {
+            case EVICT_OLDEST:
+                return oldest();
+
+            case PRIORITY:
+                // the oldest of the lowest permission level goes, as long as it is lower than the newcomer's
+                BaseRequest victim = null;
+                int victimLevel = Integer.MAX_VALUE;
+                for (BaseRequest request : requests.values()) {
+                    int level = request.requester.getPermissionLevel();
+                    if (level < victimLevel) {
+                        victim = request;
+                        victimLevel = level;
+                    }
+                }
+
+                return victimLevel < newRequester.getPermissionLevel() ? victim : null;
+
+            case REJECT_NEWEST:
+            default:
+                return null;
+        }
+    }
+
+    public static enum LimitPolicy {
+        REJECT_NEWEST,
+        EVICT_OLDEST,
+        PRIORITY
+    }
+}
@@ -0,0 +1,217 @@
+package com.thatmg393.tpa4fabric.tpa.request;
+
+import static com.thatmg393.tpa4fabric.utils.MCTextUtils.fromLang;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.config.data.ModConfigData;
+import com.thatmg393.tpa4fabric.tpa.TPAManager;
+import com.thatmg393.tpa4fabric.tpa.request.base.BaseRequest;
+import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+
+/**
+ * Every live request, reachable from both of its sides.
+ * <p>
+ * Pending requests are indexed by receiver (incoming, oldest first) and by requester (outgoing),
+ * requests in their warmup are indexed by both players. Cleaning up after a player is O(k) in their own requests.
+ * Players without any request have no entry at all. Confined to the server thread.
+ */
+public class RequestIndex {
+    private static final RequestIndex INSTANCE = new RequestIndex();
+
+    public static RequestIndex getInstance() {
+        return INSTANCE;
+    }
+
+    // receiver -> requester -> request
+    private final HashMap<UUID, RequestInbox> incoming = new HashMap<>();
+    // requester -> receiver -> request
+    private final HashMap<UUID, HashMap<UUID, BaseRequest>> outgoing = new HashMap<>();
+    // either side -> requests in their warmup
+    private final HashMap<UUID, ArrayList<BaseRequest>> warmups = new HashMap<>();
+
+    private RequestIndex() {
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            incoming.clear();
+            outgoing.clear();
+            warmups.clear();
+        });
+    }
+
+    /**
+     * Makes sure {@code receiver}'s inbox can take one more request from {@code requester},
+     * evicting one according to {@code tpaRequestLimitPolicy} if it is full.
+     * 
+     * @return Whether the request fits, if not it should be rejected.
+     */
+    public boolean makeRoom(TPAPlayerWrapper receiver, TPAPlayerWrapper requester) {
+        RequestInbox inbox = incoming.get(receiver.uuid);
+        ModConfigData config = ModConfigManager.loadOrGetConfig();
+        if (inbox == null || inbox.size() < config.tpaRequestLimit()) return true;
+
+        BaseRequest victim = inbox.selectVictim(config.tpaRequestLimitPolicy(), requester);
+        if (victim == null) return false;
+
+        victim.evict();
+        victim.requester.sendMessage(fromLang("tpa4fabric.message.requester.tpa.evicted", receiver.name));
+
+        return true;
+    }
+
+    public void add(BaseRequest request) {
+        incoming.computeIfAbsent(request.receiver.uuid, u -> new RequestInbox()).put(request);
+        outgoing.computeIfAbsent(request.requester.uuid, u -> new HashMap<>()).put(request.receiver.uuid, request);
+    }
+
+    public BaseRequest get(UUID receiver, UUID requester) {
+        RequestInbox requests = incoming.get(receiver);
+        return requests == null ? null : requests.get(requester);
+    }
+
+    /**
+     * Unlinks the request from both views.
+     * 
+     * @return The removed request, {@code null} if there was none.
+     */
+    public BaseRequest remove(UUID receiver, UUID requester) {
+        RequestInbox requests = incoming.get(receiver);
+        if (requests == null) return null;
+
+        BaseRequest request = requests.remove(requester);
+        if (requests.isEmpty()) incoming.remove(receiver);
+        if (request == null) return null;
+
+        HashMap<UUID, BaseRequest> sent = outgoing.get(requester);
+        if (sent != null) {
+            sent.remove(receiver);
+            if (sent.isEmpty()) outgoing.remove(requester);
+        }
+
+        return request;
+    }
+
+    /**
+     * Unlinks {@code request} if it is still the one indexed between its players, does nothing otherwise.
+     */
+    public void remove(BaseRequest request) {
+        if (get(request.receiver.uuid, request.requester.uuid) == request) remove(request.receiver.uuid, request.requester.uuid);
+    }
+
+    /**
+     * @return The oldest request {@code receiver} got, {@code null} if there is none.
+     */
+    public BaseRequest getOldestIncoming(UUID receiver) {
+        RequestInbox requests = incoming.get(receiver);
+        return requests == null ? null : requests.oldest();
+    }
+
+    /**
+     * @return The request {@code receiver} got from the player called {@code requesterName}, ignoring case,
+     * {@code null} if there is none.
+     */
+    public BaseRequest findIncoming(UUID receiver, String requesterName) {
+        RequestInbox requests = incoming.get(receiver);
+        if (requests == null) return null;
+
+        for (BaseRequest request : requests.getAll()) {
+            if (request.requester.name.equalsIgnoreCase(requesterName)) return request;
+        }
+
+        return null;
+    }
+
+    /**
+     * Suggests the names of everyone {@code receiver} has a pending request from, O(k) in their inbox,
+     * and {@link TPAManager#ALL} when there is any.
+     */
+    public CompletableFuture<Suggestions> suggestIncoming(UUID receiver, SuggestionsBuilder builder) {
+        RequestInbox requests = incoming.get(receiver);
+        if (requests == null) return builder.buildFuture();
+
+        String prefix = builder.getRemainingLowerCase();
+        if (TPAManager.ALL.startsWith(prefix)) builder.suggest(TPAManager.ALL);
+        for (BaseRequest request : requests.getAll()) {
+            if (request.requester.name.toLowerCase(Locale.ROOT).startsWith(prefix)) builder.suggest(request.requester.name);
+        }
+
+        return builder.buildFuture();
+    }
+
+    public boolean hasIncoming(UUID receiver) {
+        return incoming.containsKey(receiver);
+    }
+
+    public Collection<BaseRequest> getIncoming(UUID receiver) {
+        RequestInbox requests = incoming.get(receiver);
+        return requests == null ? Collections.emptyList() : requests.getAll();
+    }
+
+    public Collection<BaseRequest> getOutgoing(UUID requester) {
+        HashMap<UUID, BaseRequest> requests = outgoing.get(requester);
+        return requests == null ? Collections.emptyList() : Collections.unmodifiableCollection(requests.values());
+    }
+
+    public void trackWarmup(BaseRequest request) {
+        warmups.computeIfAbsent(request.requester.uuid, u -> new ArrayList<>(1)).add(request);
+        warmups.computeIfAbsent(request.receiver.uuid, u -> new ArrayList<>(1)).add(request);
+    }
+
+    public void untrackWarmup(BaseRequest request) {
+        untrackWarmup(request.requester.uuid, request);
+        untrackWarmup(request.receiver.uuid, request);
+    }
+
+    private void untrackWarmup(UUID player, BaseRequest request) {
+        ArrayList<BaseRequest> requests = warmups.get(player);
+        if (requests == null) return;
+
+        requests.remove(request);
+        if (requests.isEmpty()) warmups.remove(player);
+    }
+
+    /**
+     * Cancels every incoming request of {@code player} and lets the requesters know.
+     */
+    public void cancelIncoming(TPAPlayerWrapper player) {
+        RequestInbox requests = incoming.get(player.uuid);
+        if (requests == null) return;
+
+        for (BaseRequest request : new ArrayList<>(requests.getAll())) cancel(request, player);
+    }
+
+    /**
+     * Cancels every request {@code player} is part of, pending or warming up, and lets the other sides know.
+     */
+    public void cancelAll(TPAPlayerWrapper player) {
+        cancelIncoming(player);
+
+        HashMap<UUID, BaseRequest> sent = outgoing.get(player.uuid);
+        if (sent != null) {
+            for (BaseRequest request : new ArrayList<>(sent.values())) cancel(request, player);
+        }
+
+        ArrayList<BaseRequest> warmingUp = warmups.get(player.uuid);
+        if (warmingUp != null) {
+            // stopping a warmup untracks it, which modifies this list
+            for (BaseRequest request : new ArrayList<>(warmingUp)) cancel(request, player);
+        }
+    }
+
+    private void cancel(BaseRequest request, TPAPlayerWrapper cause) {
+        if (!request.cancel()) return;
+
+        TPAPlayerWrapper other = request.requester == cause ? request.receiver : request.requester;
+        other.sendMessage(fromLang("tpa4fabric.message.tpa.cancelled", cause.name));
+    }
+}
@@ -2,52 +2,262 @@ package com.thatmg393.tpa4fabric.tpa.request.base;
 
 import static com.thatmg393.tpa4fabric.utils.MCTextUtils.fromLang;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
-import com.thatmg393.tpa4fabric.TPA4Fabric;
+import com.thatmg393.tpa4fabric.audit.AuditJournal;
+import com.thatmg393.tpa4fabric.audit.AuditOutcome;
+import com.thatmg393.tpa4fabric.audit.AuditType;
 import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.metrics.Counter;
+import com.thatmg393.tpa4fabric.metrics.TPAMetrics;
+import com.thatmg393.tpa4fabric.tpa.request.RequestIndex;
+import com.thatmg393.tpa4fabric.tpa.request.state.RequestState;
+import com.thatmg393.tpa4fabric.tpa.request.type.RequestType;
 import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+import com.thatmg393.tpa4fabric.tpa.wrapper.models.TeleportParameters;
+import com.thatmg393.tpa4fabric.utils.scheduler.ScheduledTask;
+import com.thatmg393.tpa4fabric.utils.scheduler.TickScheduler;
 
+/**
+ * One request between two players, moving through {@link RequestState} by compare-and-set.
+ * <p>
+ * Whoever wins a transition does its work, whoever loses does nothing, so an accept and an expiry
+ * landing together resolve to exactly one of them. Moving into a terminal state is the only place
+ * that lets go of the expiry task, the {@link RequestIndex} entries and the warmup slot.
+ */
 public abstract class BaseRequest {
-    private final Timer expirationTimer = new Timer();
+    private final AtomicReference<RequestState> state = new AtomicReference<>(RequestState.PENDING);
+    private final ScheduledTask expirationTask;
+
+    private Warmup warmup = null;
+
+    private long acceptedAtNanos = 0;
+    private long warmupFinishedAtNanos = 0;
 
     public final TPAPlayerWrapper requester;
     public final TPAPlayerWrapper receiver;
+    public final RequestType type;
 
-    public BaseRequest(TPAPlayerWrapper requester, TPAPlayerWrapper receiver) {
+    public BaseRequest(TPAPlayerWrapper requester, TPAPlayerWrapper receiver, RequestType type) {
         this.requester = requester;
         this.receiver = receiver;
+        this.type = type;
+
+        TPAMetrics.REQUESTS_CREATED.increment();
+        audit(AuditOutcome.SENT);
+        this.expirationTask = TickScheduler.getInstance().schedule(
+            TickScheduler.secondsToTicks(ModConfigManager.loadOrGetConfig().tpaExpireTime()),
+            () -> {
+                if (!finish(RequestState.PENDING, RequestState.EXPIRED)) return;
 
-         expirationTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                receiver.removeTPARequest(requester.uuid);
+                TPAMetrics.REQUESTS_EXPIRED.increment();
+                audit(AuditOutcome.EXPIRED);
 
-                requester.sendMessage(fromLang("tpa4fabric.message.requester.tpa.expire", receiver.name));
-                receiver.sendMessage(fromLang("tpa4fabric.message.receiver.tpa.expire", requester.name));
+                requester.sendMessage(fromLang(type.requesterKey("expire"), receiver.name));
+                receiver.sendMessage(fromLang(type.receiverKey("expire"), requester.name));
             }
-        }, ModConfigManager.loadOrGetConfig().tpaExpireTime * 1000);
+        );
+    }
+
+    /**
+     * @return The player that is going to be teleported once this request is accepted.
+     */
+    public abstract TPAPlayerWrapper getTeleportee();
+
+    /**
+     * @return The player {@link #getTeleportee()} is going to.
+     */
+    public abstract TPAPlayerWrapper getDestination();
+
+    public RequestState getState() {
+        return state.get();
+    }
+
+    /**
+     * Moves from {@code from} to {@code to} if nothing else moved this request first.
+     */
+    boolean transition(RequestState from, RequestState to) {
+        return state.compareAndSet(from, to);
+    }
+
+    /**
+     * Like {@link #transition}, into a terminal state, and releases everything this request holds if it won.
+     */
+    boolean finish(RequestState from, RequestState to) {
+        if (!transition(from, to)) return false;
+
+        release();
+        return true;
+    }
+
+    private void release() {
+        expirationTask.cancel();
+        RequestIndex.getInstance().remove(this);
+        if (warmup != null) warmup.remove(this);
+    }
+
+    private boolean markAccepted() {
+        if (!transition(RequestState.PENDING, RequestState.ACCEPTED)) return false;
+
+        // no longer pending, neither the expiry nor the inbox have anything to do with it anymore
+        expirationTask.cancel();
+        RequestIndex.getInstance().remove(this);
+
+        acceptedAtNanos = System.nanoTime();
+        TPAMetrics.REQUESTS_ACCEPTED.increment();
+        audit(AuditOutcome.ACCEPTED);
+        return true;
+    }
+
+    /**
+     * Accepts this request and starts its teleport warmup, the teleportee must stand still until it runs out.
+     * The chunk the destination stands in is preloaded in the meantime.
+     * 
+     * @return Whether it was still pending, nothing happens otherwise.
+     */
+    public boolean accept() {
+        if (!markAccepted()) return false;
+
+        Warmup.start(getDestination(), List.of(this));
+        return true;
+    }
+
+    /**
+     * Accepts every request in {@code requests} at once, they share one warmup, one preload of the
+     * destination chunk and one countdown. All of them must go to {@code destination}.
+     * 
+     * @return The requests that were still pending and are now warming up.
+     */
+    public static List<BaseRequest> acceptAll(TPAPlayerWrapper destination, Collection<? extends BaseRequest> requests) {
+        ArrayList<BaseRequest> accepted = new ArrayList<>(requests.size());
+        for (BaseRequest request : requests) {
+            if (request.markAccepted()) accepted.add(request);
+        }
+
+        if (!accepted.isEmpty()) Warmup.start(destination, accepted);
+        return accepted;
+    }
+
+    /**
+     * @return Whether it was still pending, nothing happens otherwise.
+     */
+    public boolean deny() {
+        if (!finish(RequestState.PENDING, RequestState.DENIED)) return false;
+
+        TPAMetrics.REQUESTS_DENIED.increment();
+        audit(AuditOutcome.DENIED);
+        return true;
+    }
+
+    /**
+     * Drops this request without notifying anyone, whether it is still pending or already in its warmup.
+     * Once it is teleporting it is too late for that.
+     * 
+     * @return Whether it was cancelled, {@code false} if it already ended or is teleporting.
+     */
+    public boolean cancel() {
+        return drop(TPAMetrics.REQUESTS_CANCELLED);
+    }
+
+    /**
+     * Like {@link #cancel()} for a pending request pushed out of a full inbox, counted as evicted instead of cancelled.
+     */
+    public boolean evict() {
+        return drop(TPAMetrics.REQUESTS_EVICTED);
+    }
+
+    private boolean drop(Counter counter) {
+        RequestState current;
+        do {
+            current = state.get();
+            if (current.isTerminal() || current == RequestState.TELEPORTING) return false;
+        } while (!state.compareAndSet(current, RequestState.CANCELLED));
+
+        release();
+        counter.increment();
+        audit(AuditOutcome.CANCELLED);
+        return true;
     }
 
-    private void consume() {
-        expirationTimer.cancel();
-        TPA4Fabric.LOGGER.info("Consumed TPA request from " + requester.name);
+    /**
+     * Adds {@code outcome} of this request to the {@link AuditJournal}, from the requester to the receiver.
+     */
+    void audit(AuditOutcome outcome) {
+        AuditJournal.getInstance().record(AuditType.of(type), outcome, requester, receiver);
     }
 
-    public void accept() {
-        consume();
+    void attachWarmup(Warmup warmup) {
+        this.warmup = warmup;
     }
 
-    public void deny() {
-        consume();
+    void detachWarmup() {
+        this.warmup = null;
     }
 
-    public void default_onTick(long delta) {
-        if ((delta % 1000) == 0) {
-            float remain = (delta / 1000);
-            requester.sendMessage(fromLang("tpa4fabric.message.teleport.countdown", remain));
-            receiver.sendMessage(fromLang("tpa4fabric.message.teleport.countdown", remain));
+    /**
+     * Called once the warmup ran out without this request dropping out of it.
+     * Teleports {@link #getTeleportee()} to wherever {@link #getDestination()} stands right now.
+     * 
+     * @param group Where a group warmup collects who arrived, to send the destination one message for all of them,
+     *        {@code null} if the destination gets its own success message.
+     */
+    void onWarmupFinished(GroupArrival group) {
+        if (!transition(RequestState.WARMUP, RequestState.TELEPORTING)) {
+            if (group != null) group.failed();
+            return;
         }
+        warmupFinishedAtNanos = System.nanoTime();
+
+        TPAPlayerWrapper teleportee = getTeleportee();
+        TPAPlayerWrapper destination = getDestination();
+        TeleportParameters teleportParams = destination.getTeleportParameters();
+
+        if (!requester.isAlive() || !receiver.isAlive() || !teleportee.beforeTeleport(teleportParams)) {
+            failTeleport(group);
+            return;
+        }
+
+        // the queue waits for the destination chunk in the background, it never loads it on the tick
+        long remembered = teleportee.rememberCurrentLocation();
+        teleportee.teleport(teleportParams, () -> {
+            if (!finish(RequestState.TELEPORTING, RequestState.COMPLETED)) {
+                if (group != null) group.failed();
+                return;
+            }
+
+            onTeleported();
+            AuditJournal.getInstance().record(
+                AuditType.of(type), AuditOutcome.TELEPORTED, teleportee, destination,
+                teleportParams.dimension().getRegistryKey(), teleportParams.coordinates().x(), teleportParams.coordinates().y(), teleportParams.coordinates().z()
+            );
+
+            teleportee.onTPASuccess(teleportParams);
+            if (group == null) destination.onTPASuccess(null);
+            else group.arrived(this);
+        }, () -> {
+            teleportee.forgetLocation(remembered);
+            failTeleport(group);
+        });
+    }
+
+    /**
+     * Ends a request whose teleport will not happen anymore, dropped by the queue or refused before it.
+     */
+    private void failTeleport(GroupArrival group) {
+        if (finish(RequestState.TELEPORTING, RequestState.CANCELLED)) audit(AuditOutcome.FAILED);
+        if (group != null) group.failed();
+    }
+
+    /**
+     * Call right after the teleport this request was for happened, records how long it took to get there.
+     */
+    protected void onTeleported() {
+        long now = System.nanoTime();
+        TPAMetrics.TELEPORTS_REQUEST.increment();
+        if (warmupFinishedAtNanos != 0) TPAMetrics.WARMUP_TO_TELEPORT.record(now - warmupFinishedAtNanos);
+        if (acceptedAtNanos != 0) TPAMetrics.ACCEPT_TO_TELEPORT.record(now - acceptedAtNanos);
     }
 }
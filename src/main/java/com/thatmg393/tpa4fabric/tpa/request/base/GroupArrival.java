@@ -0,0 +1,39 @@
+package com.thatmg393.tpa4fabric.tpa.request.base;
+
+import static com.thatmg393.tpa4fabric.utils.MCTextUtils.fromLang;
+
+import java.util.ArrayList;
+
+import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+import com.thatmg393.tpa4fabric.utils.MCTextUtils;
+
+/**
+ * Who of a finished group warmup actually arrived. Once every member either arrived or failed,
+ * the destination gets one message naming the ones that made it. Confined to the server thread.
+ */
+class GroupArrival {
+    private final TPAPlayerWrapper destination;
+    private final ArrayList<BaseRequest> arrived;
+    private int pending;
+
+    GroupArrival(TPAPlayerWrapper destination, int members) {
+        this.destination = destination;
+        this.arrived = new ArrayList<>(members);
+        this.pending = members;
+    }
+
+    void arrived(BaseRequest request) {
+        arrived.add(request);
+        settle();
+    }
+
+    void failed() {
+        settle();
+    }
+
+    private void settle() {
+        if (--pending > 0 || arrived.isEmpty()) return;
+
+        destination.sendMessage(fromLang("tpa4fabric.message.teleport.group", MCTextUtils.joinNames(arrived, request -> request.getTeleportee().name)));
+    }
+}
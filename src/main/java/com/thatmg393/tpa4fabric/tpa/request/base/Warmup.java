@@ -0,0 +1,175 @@
+package com.thatmg393.tpa4fabric.tpa.request.base;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import com.thatmg393.tpa4fabric.audit.AuditOutcome;
+import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.metrics.TPAMetrics;
+import com.thatmg393.tpa4fabric.tpa.chunk.ChunkPreloader;
+import com.thatmg393.tpa4fabric.tpa.display.CountdownDisplay;
+import com.thatmg393.tpa4fabric.tpa.request.RequestIndex;
+import com.thatmg393.tpa4fabric.tpa.request.callback.enums.TPAFailReason;
+import com.thatmg393.tpa4fabric.tpa.request.state.RequestState;
+import com.thatmg393.tpa4fabric.tpa.watcher.MovementWatcher;
+import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+import com.thatmg393.tpa4fabric.utils.CountdownTimer;
+import com.thatmg393.tpa4fabric.utils.scheduler.TickScheduler;
+
+/**
+ * The countdown before one or more accepted requests teleport to the same destination player.
+ * <p>
+ * A group shares one timer, one preload of the destination chunk and one countdown display,
+ * while every member is watched on its own: a member that moves, gets hurt or leaves drops out alone,
+ * the warmup only stops once nobody is left. Confined to the server thread.
+ */
+class Warmup {
+    private final TPAPlayerWrapper destination;
+    private final ArrayList<Member> members;
+
+    private final CountdownTimer timer;
+    private final ChunkPreloader.Preload preload;
+    private final CountdownDisplay.Countdown countdown;
+
+    private Warmup(TPAPlayerWrapper destination, Collection<? extends BaseRequest> requests) {
+        this.destination = destination;
+        this.members = new ArrayList<>(requests.size());
+
+        long warmupSeconds = ModConfigManager.loadOrGetConfig().tpaTeleportTime() + 1;
+        this.preload = ChunkPreloader.getInstance().preload(destination.getCurrentDimension(), destination.getChunkPos());
+
+        ArrayList<TPAPlayerWrapper> viewers = new ArrayList<>(requests.size() + 1);
+        viewers.add(destination);
+        for (BaseRequest request : requests) {
+            members.add(new Member(request));
+            viewers.add(request.getTeleportee());
+        }
+        this.countdown = CountdownDisplay.getInstance().show(viewers, TickScheduler.secondsToTicks(warmupSeconds));
+
+        this.timer = new CountdownTimer(new CountdownTimer.TimerCallback() {
+            @Override
+            public void onTick(CountdownTimer myself, long delta) {
+                for (Member member : new ArrayList<>(members)) member.checkAlive();
+            }
+
+            @Override
+            public void onStop(CountdownTimer myself, long remaining) {
+                for (Member member : members) member.detach();
+                members.clear();
+                release();
+            }
+
+            @Override
+            public void onFinished(CountdownTimer myself) {
+                ArrayList<BaseRequest> finished = new ArrayList<>(members.size());
+                for (Member member : members) {
+                    member.detach();
+                    finished.add(member.request);
+                }
+                members.clear();
+
+                // a group hears who arrived once all of their teleports went through or failed
+                GroupArrival group = finished.size() > 1 ? new GroupArrival(destination, finished.size()) : null;
+                for (BaseRequest request : finished) request.onWarmupFinished(group);
+
+                // after onWarmupFinished, the queued teleports took their own preloads of the same chunk by then
+                release();
+            }
+        }, warmupSeconds * 1000, 1000);
+    }
+
+    /**
+     * Starts one warmup for every request in {@code requests}, all of them must go to {@code destination}.
+     */
+    static Warmup start(TPAPlayerWrapper destination, Collection<? extends BaseRequest> requests) {
+        Warmup warmup = new Warmup(destination, requests);
+        warmup.timer.start();
+
+        return warmup;
+    }
+
+    /**
+     * Takes {@code request} out of this warmup without notifying anyone, stops it if it was the last one.
+     */
+    void remove(BaseRequest request) {
+        for (Member member : members) {
+            if (member.request == request) {
+                drop(member);
+                return;
+            }
+        }
+    }
+
+    private void drop(Member member) {
+        member.detach();
+        members.remove(member);
+
+        if (members.isEmpty()) timer.stop();
+        else countdown.removeViewer(member.teleportee);
+    }
+
+    private void release() {
+        countdown.remove();
+        preload.release();
+    }
+
+    private class Member {
+        private final BaseRequest request;
+        private final TPAPlayerWrapper teleportee;
+        private final MovementWatcher.Watch watch;
+
+        Member(BaseRequest request) {
+            this.request = request;
+            this.teleportee = request.getTeleportee();
+
+            request.transition(RequestState.ACCEPTED, RequestState.WARMUP);
+            request.attachWarmup(Warmup.this);
+            RequestIndex.getInstance().trackWarmup(request);
+
+            this.watch = MovementWatcher.getInstance().watch(teleportee, trigger -> {
+                if (!fail()) return;
+
+                boolean hurt = trigger == MovementWatcher.Trigger.DAMAGED;
+                (hurt ? TPAMetrics.WARMUPS_FAILED_HURT : TPAMetrics.WARMUPS_FAILED_MOVED).increment();
+
+                teleportee.onTPAFail(hurt ? TPAFailReason.YOU_WERE_HURT : TPAFailReason.YOU_MOVED);
+                destination.onTPAFail(hurt ? TPAFailReason.REQUESTER_WAS_HURT : TPAFailReason.REQUESTER_MOVED);
+            });
+        }
+
+        void checkAlive() {
+            if (!request.receiver.isAlive()) {
+                if (!fail()) return;
+
+                TPAMetrics.WARMUPS_FAILED_GONE.increment();
+                request.requester.onTPAFail(TPAFailReason.RECEIVER_DEAD_OR_DISCONNECTED);
+                return;
+            }
+
+            if (!request.requester.isAlive()) {
+                if (!fail()) return;
+
+                TPAMetrics.WARMUPS_FAILED_GONE.increment();
+                request.receiver.onTPAFail(TPAFailReason.REQUESTER_DEAD_OR_DISCONNECTED);
+            }
+        }
+
+        /**
+         * Ends the request as cancelled, which takes it out of this warmup.
+         * 
+         * @return Whether it was still warming up.
+         */
+        private boolean fail() {
+            if (!request.finish(RequestState.WARMUP, RequestState.CANCELLED)) return false;
+
+            request.audit(AuditOutcome.FAILED);
+            return true;
+        }
+
+        void detach() {
+            watch.cancel();
+            RequestIndex.getInstance().untrackWarmup(request);
+            request.detachWarmup();
+        }
+    }
+}
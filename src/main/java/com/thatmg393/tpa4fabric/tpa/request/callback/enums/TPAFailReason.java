@@ -4,6 +4,9 @@ public enum TPAFailReason {
     REQUESTER_MOVED,
     YOU_MOVED,
 
+    REQUESTER_WAS_HURT,
+    YOU_WERE_HURT,
+
     REQUESTER_DEAD_OR_DISCONNECTED,
     RECEIVER_DEAD_OR_DISCONNECTED
     // REQUESTER_IN_COMBAT
@@ -0,0 +1,29 @@
+package com.thatmg393.tpa4fabric.tpa.request.state;
+
+/**
+ * Where a request is in its life. It only ever moves forward:
+ * <pre>
+ * PENDING -> ACCEPTED -> WARMUP -> TELEPORTING -> COMPLETED
+ * PENDING -> DENIED | EXPIRED
+ * PENDING | ACCEPTED | WARMUP | TELEPORTING -> CANCELLED
+ * </pre>
+ * A request that fails its warmup, or whose players are gone by the time it would teleport, ends up {@link #CANCELLED}.
+ */
+public enum RequestState {
+    PENDING,
+    ACCEPTED,
+    WARMUP,
+    TELEPORTING,
+
+    COMPLETED,
+    DENIED,
+    EXPIRED,
+    CANCELLED;
+
+    /**
+     * @return Whether nothing happens to a request in this state anymore.
+     */
+    public boolean isTerminal() {
+        return ordinal() >= COMPLETED.ordinal();
+    }
+}
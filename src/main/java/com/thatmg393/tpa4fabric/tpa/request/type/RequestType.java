@@ -1,7 +1,38 @@
 package com.thatmg393.tpa4fabric.tpa.request.type;
 
+import com.thatmg393.tpa4fabric.tpa.cooldown.CooldownType;
+
 public enum RequestType {
-    NORMAL,
-    HERE
+    NORMAL("tpa", CooldownType.TPA),
+    HERE("tpahere", CooldownType.TPAHERE);
     // BACK
-}
\ No newline at end of file
+
+    private final String langName;
+    private final CooldownType cooldownType;
+
+    private RequestType(String langName, CooldownType cooldownType) {
+        this.langName = langName;
+        this.cooldownType = cooldownType;
+    }
+
+    /**
+     * @return The cooldown the requester spends on sending this type of request.
+     */
+    public CooldownType cooldownType() {
+        return cooldownType;
+    }
+
+    /**
+     * @return {@code tpa4fabric.message.requester.<type>.<event>}
+     */
+    public String requesterKey(String event) {
+        return "tpa4fabric.message.requester." + langName + "." + event;
+    }
+
+    /**
+     * @return {@code tpa4fabric.message.receiver.<type>.<event>}
+     */
+    public String receiverKey(String event) {
+        return "tpa4fabric.message.receiver." + langName + "." + event;
+    }
+}
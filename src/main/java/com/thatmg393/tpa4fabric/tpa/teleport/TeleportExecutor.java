@@ -0,0 +1,245 @@
+package com.thatmg393.tpa4fabric.tpa.teleport;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+
+import com.thatmg393.tpa4fabric.TPA4Fabric;
+import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.config.data.ModConfigData;
+import com.thatmg393.tpa4fabric.metrics.TPAMetrics;
+import com.thatmg393.tpa4fabric.tpa.chunk.ChunkPreloader;
+import com.thatmg393.tpa4fabric.tpa.landing.SafeLandingResolver;
+import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+import com.thatmg393.tpa4fabric.tpa.wrapper.models.TeleportParameters;
+import com.thatmg393.tpa4fabric.utils.scheduler.TickScheduler;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+
+/**
+ * Queues teleports that are ready to happen and performs them at the end of each tick,
+ * at most {@code teleportsPerTick} of them and until {@code teleportTickBudget} milliseconds are spent.
+ * <p>
+ * The destination chunk is preloaded while a teleport waits, once loaded the destination goes through the
+ * {@link SafeLandingResolver}. Only teleports whose destination is loaded and resolved go through,
+ * the ones waiting longer than {@link #MAX_WAIT_TICKS} first, then same dimension moves before cross dimension ones.
+ * A chunk is never loaded on the spot, one that is still not ready after {@link #MAX_LOAD_TICKS} is dropped instead.
+ * At least one ready teleport happens per tick so the queue always moves.
+ * <p>
+ * Confined to the server thread.
+ */
+public class TeleportExecutor {
+    private static final TeleportExecutor INSTANCE = new TeleportExecutor();
+
+    public static TeleportExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    private static final long MAX_WAIT_TICKS = 5 * TickScheduler.TICKS_PER_SECOND;
+    private static final long MAX_LOAD_TICKS = 30 * TickScheduler.TICKS_PER_SECOND;
+
+    private final ArrayList<QueuedTeleport> queue = new ArrayList<>();
+    private final Budget budget = new Budget();
+
+    private TeleportExecutor() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> drain());
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            // the submitters still hear about it, so nothing waits on a teleport that will never happen
+            for (int i = 0; i < queue.size(); i++) {
+                if (!queue.get(i).done) queue.get(i).drop();
+            }
+            queue.clear();
+        });
+    }
+
+    /**
+     * Queues {@code player} to be moved to {@code params}, then runs {@code afterTeleport}.
+     * Runs {@code onFailed} instead if the player dies or leaves before their turn, or the teleport throws.
+     * Either callback may be {@code null}.
+     */
+    public void submit(TPAPlayerWrapper player, TeleportParameters params, Runnable afterTeleport, Runnable onFailed) {
+        queue.add(new QueuedTeleport(
+            player,
+            params,
+            afterTeleport,
+            onFailed,
+            ChunkPreloader.getInstance().preload(params.dimension(), params.chunkPos()),
+            TickScheduler.getInstance().getCurrentTick(),
+            System.nanoTime()
+        ));
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void drain() {
+        if (queue.isEmpty()) return;
+
+        ModConfigData config = ModConfigManager.loadOrGetConfig();
+        budget.reset(config.teleportsPerTick(), config.teleportTickBudget() * 1_000_000L);
+        long now = TickScheduler.getInstance().getCurrentTick();
+
+        // get every safe landing search going, even for the ones that won't fit in this tick
+        for (QueuedTeleport teleport : queue) teleport.isReady();
+
+        // overdue first so nothing starves, then same dimension, then cross dimension, all of them loaded
+        for (int pass = 0; pass < 3 && budget.hasRoom(); pass++) {
+            for (int i = 0; i < queue.size() && budget.hasRoom(); i++) {
+                QueuedTeleport teleport = queue.get(i);
+                if (teleport.done) continue;
+
+                if (!teleport.player.isAlive()) {
+                    teleport.drop();
+                    continue;
+                }
+
+                long waited = now - teleport.enqueuedAtTick;
+                if (!teleport.isReady()) {
+                    if (waited >= MAX_LOAD_TICKS) {
+                        TPA4Fabric.LOGGER.warn("The destination of " + teleport.player.name + " did not load in time, dropping the teleport.");
+                        teleport.drop();
+                    }
+                    continue;
+                }
+
+                boolean eligible;
+                switch (pass) {
+                    case 0: eligible = waited >= MAX_WAIT_TICKS; break;
+                    case 1: eligible = teleport.isSameDimension(); break;
+                    default: eligible = true; break;
+                }
+
+                if (eligible) budget.spend(teleport.run());
+            }
+        }
+
+        // one sweep to take the finished ones out, keeps the rest in submission order
+        int kept = 0;
+        for (int i = 0; i < queue.size(); i++) {
+            QueuedTeleport teleport = queue.get(i);
+            if (!teleport.done) queue.set(kept++, teleport);
+        }
+        queue.subList(kept, queue.size()).clear();
+    }
+
+    private static class Budget {
+        private int teleportsLeft;
+        private long nanosLeft;
+        private boolean timed;
+        private boolean spentAny;
+
+        void reset(int teleports, long nanos) {
+            this.teleportsLeft = teleports;
+            this.nanosLeft = nanos;
+            this.timed = nanos > 0;
+            this.spentAny = false;
+        }
+
+        boolean hasRoom() {
+            return !spentAny || (teleportsLeft > 0 && (!timed || nanosLeft > 0));
+        }
+
+        void spend(long nanos) {
+            spentAny = true;
+            teleportsLeft--;
+            nanosLeft -= nanos;
+        }
+    }
+
+    private static class QueuedTeleport {
+        private final TPAPlayerWrapper player;
+        private final TeleportParameters params;
+        private CompletableFuture<TeleportParameters> landing = null;
+        private final Runnable afterTeleport;
+        private final Runnable onFailed;
+        private final ChunkPreloader.Preload preload;
+        private final long enqueuedAtTick;
+        private final long enqueuedAtNanos;
+
+        private boolean done = false;
+
+        QueuedTeleport(TPAPlayerWrapper player, TeleportParameters params, Runnable afterTeleport, Runnable onFailed, ChunkPreloader.Preload preload, long enqueuedAtTick, long enqueuedAtNanos) {
+            this.player = player;
+            this.params = params;
+            this.afterTeleport = afterTeleport;
+            this.onFailed = onFailed;
+            this.preload = preload;
+            this.enqueuedAtTick = enqueuedAtTick;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+        }
+
+        /**
+         * Starts the safe landing search as soon as the destination is loaded.
+         * 
+         * @return Whether the destination is loaded and resolved.
+         */
+        boolean isReady() {
+            if (landing == null) {
+                if (!preload.isLoaded()) return false;
+                landing = SafeLandingResolver.getInstance().resolve(params);
+            }
+
+            return landing.isDone();
+        }
+
+        /**
+         * Only call once {@link #isReady()}, the chunk is loaded by then either way.
+         * 
+         * @return The resolved destination, or the original one if the search failed.
+         */
+        TeleportParameters getDestination() {
+            TeleportParameters resolved = landing.getNow(null);
+            return resolved != null ? resolved : params;
+        }
+
+        boolean isSameDimension() {
+            return player.getCurrentDimension() == params.dimension();
+        }
+
+        /**
+         * @return How long the teleport itself took, in nanoseconds.
+         */
+        long run() {
+            done = true;
+
+            long start = System.nanoTime();
+            TPAMetrics.TELEPORT_QUEUE_WAIT.record(start - enqueuedAtNanos);
+
+            try {
+                player.teleportNow(getDestination());
+            } catch (Exception e) {
+                TPA4Fabric.LOGGER.error("Failed to teleport " + player.name + "! " + e.toString());
+                preload.release();
+                fail();
+                return System.nanoTime() - start;
+            }
+            preload.release();
+            long elapsed = System.nanoTime() - start;
+            TPAMetrics.TELEPORT_CALL.record(elapsed);
+
+            try {
+                if (afterTeleport != null) afterTeleport.run();
+            } catch (Exception e) {
+                TPA4Fabric.LOGGER.error("Something failed after teleporting " + player.name + "! " + e.toString());
+            }
+
+            return elapsed;
+        }
+
+        void drop() {
+            done = true;
+            preload.release();
+            TPAMetrics.TELEPORTS_DROPPED.increment();
+            fail();
+        }
+
+        private void fail() {
+            try {
+                if (onFailed != null) onFailed.run();
+            } catch (Exception e) {
+                TPA4Fabric.LOGGER.error("Something failed after dropping the teleport of " + player.name + "! " + e.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.thatmg393.tpa4fabric.tpa.watcher;
+
+import java.util.ArrayList;
+
+import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.config.data.ModConfigData;
+import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+
+import net.fabricmc.fabric.api.entity.event.v1.ServerLivingEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+/**
+ * Watches players that are in a teleport warmup and fires once they move, turn or get hurt.
+ * <p>
+ * All active watches are checked once per server tick, so the cost scales with the amount of warmups
+ * and a cancellation is noticed at most one tick late. Confined to the server thread.
+ */
+public class MovementWatcher {
+    private static final MovementWatcher INSTANCE = new MovementWatcher();
+
+    public static MovementWatcher getInstance() {
+        return INSTANCE;
+    }
+
+    private final ArrayList<Watch> watches = new ArrayList<>();
+
+    private MovementWatcher() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> tick());
+
+        ServerLivingEntityEvents.AFTER_DAMAGE.register((entity, source, baseDamageTaken, damageTaken, blocked) -> {
+            if (damageTaken <= 0 || !(entity instanceof ServerPlayerEntity)) return;
+            if (!ModConfigManager.loadOrGetConfig().tpaCancelOnDamage()) return;
+
+            for (int i = 0; i < watches.size(); i++) {
+                Watch watch = watches.get(i);
+                if (watch.active && watch.player.isSamePlayer(entity)) watch.trigger(Trigger.DAMAGED);
+            }
+        });
+
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            for (Watch watch : watches) watch.active = false;
+            watches.clear();
+        });
+    }
+
+    /**
+     * Starts watching {@code player} from where they currently stand.
+     * The listener is called at most once, after which the watch is dropped.
+     */
+    public Watch watch(TPAPlayerWrapper player, Listener listener) {
+        Watch watch = new Watch(player, listener);
+        watches.add(watch);
+
+        return watch;
+    }
+
+    public int getActiveWatchCount() {
+        return watches.size();
+    }
+
+    private void tick() {
+        if (watches.isEmpty()) return;
+
+        ModConfigData config = ModConfigManager.loadOrGetConfig();
+        double thresholdSq = config.tpaMoveThreshold() * config.tpaMoveThreshold();
+        boolean checkRotation = config.tpaCancelOnRotate();
+
+        int i = 0;
+        while (i < watches.size()) {
+            Watch watch = watches.get(i);
+
+            if (watch.active) {
+                if (watch.hasMoved(thresholdSq)) watch.trigger(Trigger.MOVED);
+                else if (checkRotation && watch.hasRotated()) watch.trigger(Trigger.ROTATED);
+            }
+
+            // listeners only ever append or deactivate, so index i still points at this watch
+            if (!watch.active) {
+                int last = watches.size() - 1;
+                watches.set(i, watches.get(last));
+                watches.remove(last);
+            } else i++;
+        }
+    }
+
+    public static enum Trigger {
+        MOVED,
+        ROTATED,
+        DAMAGED
+    }
+
+    @FunctionalInterface
+    public static interface Listener {
+        void onTriggered(Trigger trigger);
+    }
+
+    public static class Watch {
+        private final TPAPlayerWrapper player;
+        private final Listener listener;
+
+        private final double originX, originY, originZ;
+        private final float originYaw, originPitch;
+
+        private boolean active = true;
+
+        private Watch(TPAPlayerWrapper player, Listener listener) {
+            this.player = player;
+            this.listener = listener;
+
+            this.originX = player.getX();
+            this.originY = player.getY();
+            this.originZ = player.getZ();
+            this.originYaw = player.getYaw();
+            this.originPitch = player.getPitch();
+        }
+
+        private boolean hasMoved(double thresholdSq) {
+            double dx = player.getX() - originX;
+            double dy = player.getY() - originY;
+            double dz = player.getZ() - originZ;
+
+            return (dx * dx) + (dy * dy) + (dz * dz) > thresholdSq;
+        }
+
+        private boolean hasRotated() {
+            return player.getYaw() != originYaw || player.getPitch() != originPitch;
+        }
+
+        private void trigger(Trigger trigger) {
+            active = false;
+            listener.onTriggered(trigger);
+        }
+
+        /**
+         * Stops watching without notifying the listener.
+         */
+        public void cancel() {
+            active = false;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+    }
+}
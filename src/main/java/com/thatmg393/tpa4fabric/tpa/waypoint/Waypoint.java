@@ -0,0 +1,34 @@
+package com.thatmg393.tpa4fabric.tpa.waypoint;
+
+import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+import com.thatmg393.tpa4fabric.tpa.wrapper.models.Coordinates;
+import com.thatmg393.tpa4fabric.tpa.wrapper.models.TeleportParameters;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.World;
+
+/**
+ * A saved location, a warp or a home. Kept as a dimension key so it never holds on to a world.
+ */
+public record Waypoint(
+    RegistryKey<World> dimension, double x, double y, double z
+) {
+    /**
+     * @return Where {@code player} stands right now.
+     */
+    public static Waypoint of(TPAPlayerWrapper player) {
+        return new Waypoint(player.getCurrentDimension().getRegistryKey(), player.getX(), player.getY(), player.getZ());
+    }
+
+    /**
+     * @return The parameters to teleport here, {@code null} if the dimension no longer exists.
+     */
+    public TeleportParameters toTeleportParameters(MinecraftServer server) {
+        ServerWorld world = server.getWorld(dimension);
+        if (world == null) return null;
+
+        return new TeleportParameters(world, new Coordinates(x, y, z));
+    }
+}
@@ -0,0 +1,136 @@
+package com.thatmg393.tpa4fabric.tpa.waypoint;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.thatmg393.tpa4fabric.TPA4Fabric;
+
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.util.Identifier;
+
+/**
+ * The on-disk format of a {@link WaypointStore}, only used on the DataStorage thread.
+ * <pre>
+ * byte  version
+ * int   count
+ * int   index length in bytes
+ * index count times: UTF name, int offset into the data
+ * data  count times: UTF dimension, double x, double y, double z
+ * </pre>
+ * The index is sorted by name and read in one go, a waypoint itself is only read once someone goes there.
+ * Every rewrite keeps the file it replaces as {@code <name>.bak}.
+ */
+final class WaypointFile {
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 1 + 4 + 4;
+
+    private WaypointFile() { }
+
+    /**
+     * @return The offset of every waypoint in {@code path} by name, empty if there is no file yet.
+     */
+    static HashMap<String, Integer> readIndex(Path path) throws IOException {
+        HashMap<String, Integer> offsets = new HashMap<>();
+        if (!Files.exists(path)) return offsets;
+
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+            int version = file.readUnsignedByte();
+            if (version != VERSION) throw new IOException("unknown waypoint file version " + version);
+
+            int count = file.readInt();
+            byte[] index = new byte[file.readInt()];
+            file.readFully(index);
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(index));
+            for (int i = 0; i < count; i++) offsets.put(in.readUTF(), in.readInt());
+        }
+
+        return offsets;
+    }
+
+    /**
+     * @return The waypoint at {@code offset}, as given by {@link #readIndex}.
+     */
+    static Waypoint readAt(Path path, int offset) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+            return read(file, offset);
+        }
+    }
+
+    private static Waypoint read(RandomAccessFile file, int offset) throws IOException {
+        file.seek(1 + 4);
+        file.seek(HEADER_BYTES + file.readInt() + offset);
+
+        return new Waypoint(
+            RegistryKey.of(RegistryKeys.WORLD, Identifier.of(file.readUTF())),
+            file.readDouble(), file.readDouble(), file.readDouble()
+        );
+    }
+
+    /**
+     * Replaces {@code path} with the waypoints in {@code names}, taken from {@code known} or read from the old file.
+     *
+     * @param names Every name the new file should have, sorted.
+     * @param oldOffsets What {@link #readIndex} returned for the old file.
+     * @return The offsets of the new file.
+     */
+    static HashMap<String, Integer> rewrite(Path path, List<String> names, Map<String, Waypoint> known, Map<String, Integer> oldOffsets) throws IOException {
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream(names.size() * 16);
+        ByteArrayOutputStream dataBytes = new ByteArrayOutputStream(names.size() * 48);
+        DataOutputStream index = new DataOutputStream(indexBytes);
+        DataOutputStream data = new DataOutputStream(dataBytes);
+
+        HashMap<String, Integer> offsets = new HashMap<>();
+        try (RandomAccessFile old = Files.exists(path) ? new RandomAccessFile(path.toFile(), "r") : null) {
+            for (String name : names) {
+                Waypoint waypoint = known.get(name);
+                if (waypoint == null) {
+                    Integer oldOffset = oldOffsets.get(name);
+                    if (oldOffset == null || old == null) continue;
+
+                    try {
+                        waypoint = read(old, oldOffset);
+                    } catch (IOException e) {
+                        TPA4Fabric.LOGGER.error("Lost waypoint " + name + " while rewriting " + path.getFileName() + "! " + e.toString());
+                        continue;
+                    }
+                }
+
+                index.writeUTF(name);
+                index.writeInt(data.size());
+                offsets.put(name, data.size());
+
+                data.writeUTF(waypoint.dimension().getValue().toString());
+                data.writeDouble(waypoint.x());
+                data.writeDouble(waypoint.y());
+                data.writeDouble(waypoint.z());
+            }
+        }
+
+        Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.createDirectories(path.getParent());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpPath)))) {
+            out.writeByte(VERSION);
+            out.writeInt(offsets.size());
+            out.writeInt(index.size());
+            indexBytes.writeTo(out);
+            dataBytes.writeTo(out);
+        }
+
+        if (Files.exists(path)) Files.copy(path, path.resolveSibling(path.getFileName() + ".bak"), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return offsets;
+    }
+}
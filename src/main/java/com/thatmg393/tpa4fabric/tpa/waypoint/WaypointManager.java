@@ -0,0 +1,116 @@
+package com.thatmg393.tpa4fabric.tpa.waypoint;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.UUID;
+
+import com.thatmg393.tpa4fabric.persistence.DataStorage;
+import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+import com.thatmg393.tpa4fabric.tpa.wrapper.models.TeleportParameters;
+import com.thatmg393.tpa4fabric.utils.scheduler.TickScheduler;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.server.MinecraftServer;
+
+/**
+ * Owns the server wide warps, in {@code <world>/tpa4fabric/warps.dat}, the homes of the players that used them
+ * since they joined, in {@code homes/<uuid>.dat}, and the warmups of everyone on their way to one of them.
+ * A player's homes are only read the first time they are needed and dropped again when the player leaves.
+ * <p>
+ * Every few seconds all changed stores are written on the {@link DataStorage} thread. Confined to the server thread.
+ */
+public class WaypointManager {
+    private static final WaypointManager INSTANCE = new WaypointManager();
+
+    public static WaypointManager getInstance() {
+        return INSTANCE;
+    }
+
+    public static final int MAX_NAME_LENGTH = 32;
+
+    private static final long FLUSH_INTERVAL_TICKS = TickScheduler.secondsToTicks(5);
+
+    private MinecraftServer server = null;
+    private WaypointStore warps = null;
+    private final HashMap<UUID, WaypointStore> homes = new HashMap<>();
+    private final HashSet<UUID> leaving = new HashSet<>(); // left while their homes were still being read
+    private final HashMap<UUID, WaypointWarmup> warmups = new HashMap<>();
+
+    private WaypointManager() {
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> {
+            this.server = server;
+            this.warps = new WaypointStore(DataStorage.getInstance().resolve("warps.dat"), server);
+            TickScheduler.getInstance().scheduleRepeating(FLUSH_INTERVAL_TICKS, FLUSH_INTERVAL_TICKS, this::flush);
+        });
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            flush();
+            homes.clear();
+            leaving.clear();
+            warmups.clear();
+            warps = null;
+        });
+    }
+
+    /**
+     * @return {@code name} the way waypoints are keyed, {@code null} if it is not a valid name.
+     */
+    public static String normalizeName(String name) {
+        if (name.isEmpty() || name.length() > MAX_NAME_LENGTH) return null;
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    public WaypointStore getWarps() {
+        return warps;
+    }
+
+    /**
+     * @return The homes of {@code owner}, starts reading them if they are not in memory yet.
+     */
+    public WaypointStore getHomes(UUID owner) {
+        leaving.remove(owner);
+        return homes.computeIfAbsent(owner, uuid -> new WaypointStore(DataStorage.getInstance().resolve("homes", uuid + ".dat"), server));
+    }
+
+    /**
+     * Writes the homes of {@code owner} if needed and drops them from memory.
+     * If they are still being read that waits until they are in, so the changes queued until then still get written.
+     * Using them again before that keeps them.
+     */
+    public void release(UUID owner) {
+        WaypointStore store = homes.get(owner);
+        if (store == null) return;
+
+        if (!store.isReady()) {
+            if (leaving.add(owner)) store.whenReady(() -> {
+                if (leaving.remove(owner)) release(owner);
+            });
+            return;
+        }
+
+        homes.remove(owner);
+        store.flush();
+    }
+
+    /**
+     * Starts the warmup of {@code player} before going to {@code destination}, replacing the one they already had.
+     * {@code teleport} runs once it finished without them moving, getting hurt or leaving.
+     */
+    public void startWarmup(TPAPlayerWrapper player, TeleportParameters destination, Runnable teleport) {
+        WaypointWarmup previous = warmups.remove(player.uuid);
+        if (previous != null) previous.cancel();
+
+        WaypointWarmup warmup = new WaypointWarmup(player, destination, teleport);
+        warmups.put(player.uuid, warmup);
+        warmup.start();
+    }
+
+    void endWarmup(UUID player, WaypointWarmup warmup) {
+        warmups.remove(player, warmup);
+    }
+
+    private void flush() {
+        if (warps != null) warps.flush();
+        for (WaypointStore store : homes.values()) store.flush();
+    }
+}
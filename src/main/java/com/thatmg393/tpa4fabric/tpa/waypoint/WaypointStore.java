@@ -0,0 +1,192 @@
+package com.thatmg393.tpa4fabric.tpa.waypoint;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
+import com.thatmg393.tpa4fabric.TPA4Fabric;
+import com.thatmg393.tpa4fabric.persistence.DataStorage;
+import com.thatmg393.tpa4fabric.utils.PrefixTrie;
+
+import net.minecraft.server.MinecraftServer;
+
+/**
+ * A named set of {@link Waypoint}s backed by one {@link WaypointFile}, the server's warps or the homes of one player.
+ * <p>
+ * Only the index of the file is read up front, its names go into a {@link PrefixTrie} for tab completion.
+ * A waypoint itself is read the first time someone goes there and kept from then on.
+ * Changes stay in memory until {@link WaypointManager} flushes them as one rewrite of the file.
+ * If the index cannot be read the store is marked failed and refuses every change,
+ * so the unreadable file is never replaced by what little was set since.
+ * <p>
+ * Confined to the server thread, except for the offsets which only the DataStorage thread touches.
+ */
+public class WaypointStore {
+    private static final int MAX_SUGGESTIONS = 200;
+
+    private final Path path;
+    private final MinecraftServer server;
+
+    private final PrefixTrie names = new PrefixTrie();
+    private final HashMap<String, Waypoint> loaded = new HashMap<>();
+    private ArrayList<Runnable> whenReady = new ArrayList<>(); // null once the index is in
+    private boolean dirty = false;
+    private boolean failed = false;
+
+    // DataStorage thread only
+    private HashMap<String, Integer> offsets = new HashMap<>();
+
+    WaypointStore(Path path, MinecraftServer server) {
+        this.path = path;
+        this.server = server;
+
+        DataStorage.getInstance().execute(() -> {
+            HashMap<String, Integer> index;
+            try {
+                index = WaypointFile.readIndex(path);
+            } catch (IOException e) {
+                TPA4Fabric.LOGGER.error("Failed to read " + path.getFileName() + ", leaving it alone until it is fixed! " + e.toString());
+                index = null;
+            }
+
+            boolean readFailed = index == null;
+            if (!readFailed) offsets = index;
+            ArrayList<String> keys = readFailed ? new ArrayList<>() : new ArrayList<>(index.keySet());
+
+            server.execute(() -> {
+                failed = readFailed;
+                for (String key : keys) names.add(key);
+
+                ArrayList<Runnable> pending = whenReady;
+                whenReady = null;
+                for (Runnable action : pending) action.run();
+            });
+        });
+    }
+
+    public boolean isReady() {
+        return whenReady == null;
+    }
+
+    /**
+     * @return Whether the file could not be read, nothing can be changed then.
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Runs {@code action} once the names are known, right away if they already are.
+     * {@link #contains}, {@link #size}, {@link #put} and {@link #remove} are only meaningful in there.
+     */
+    public void whenReady(Runnable action) {
+        if (whenReady == null) action.run();
+        else whenReady.add(action);
+    }
+
+    public boolean contains(String name) {
+        return names.contains(name);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * @return Whether it was stored, {@code false} if the store {@link #isFailed() failed}.
+     */
+    public boolean put(String name, Waypoint waypoint) {
+        if (failed) return false;
+
+        names.add(name);
+        loaded.put(name, waypoint);
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * @return Whether there was a waypoint called {@code name}.
+     */
+    public boolean remove(String name) {
+        if (failed || !names.remove(name)) return false;
+
+        loaded.remove(name);
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Looks up {@code name}, reading it from the file in the background if nobody went there yet.
+     *
+     * @return The waypoint or {@code null} if there is none by that name, completed on the server thread.
+     */
+    public CompletableFuture<Waypoint> get(String name) {
+        CompletableFuture<Waypoint> result = new CompletableFuture<>();
+
+        whenReady(() -> {
+            Waypoint cached = loaded.get(name);
+            if (cached != null || !names.contains(name)) {
+                result.complete(cached);
+                return;
+            }
+
+            DataStorage.getInstance().execute(() -> {
+                Integer offset = offsets.get(name);
+                Waypoint read = null;
+                if (offset != null) {
+                    try {
+                        read = WaypointFile.readAt(path, offset);
+                    } catch (IOException e) {
+                        TPA4Fabric.LOGGER.error("Failed to read waypoint " + name + " from " + path.getFileName() + "! " + e.toString());
+                    }
+                }
+
+                Waypoint fromFile = read;
+                server.execute(() -> {
+                    // it might have been replaced or removed while it was read
+                    if (!names.contains(name)) {
+                        result.complete(null);
+                        return;
+                    }
+
+                    if (fromFile != null) loaded.putIfAbsent(name, fromFile);
+                    result.complete(loaded.get(name));
+                });
+            });
+        });
+
+        return result;
+    }
+
+    /**
+     * Suggests the names starting with what was typed so far, in alphabetical order.
+     */
+    public CompletableFuture<Suggestions> suggest(SuggestionsBuilder builder) {
+        names.collect(builder.getRemainingLowerCase(), MAX_SUGGESTIONS, builder::suggest);
+        return builder.buildFuture();
+    }
+
+    /**
+     * Queues a rewrite of the file if anything changed since the last one.
+     */
+    void flush() {
+        if (!dirty || !isReady() || failed) return;
+        dirty = false;
+
+        ArrayList<String> keys = new ArrayList<>(names.size());
+        names.collect("", Integer.MAX_VALUE, keys::add);
+        HashMap<String, Waypoint> known = new HashMap<>(loaded);
+
+        DataStorage.getInstance().execute(() -> {
+            try {
+                offsets = WaypointFile.rewrite(path, keys, known, offsets);
+            } catch (IOException e) {
+                TPA4Fabric.LOGGER.error("Failed to save " + path.getFileName() + "! " + e.toString());
+            }
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package com.thatmg393.tpa4fabric.tpa.waypoint;
+
+import java.util.List;
+
+import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.metrics.TPAMetrics;
+import com.thatmg393.tpa4fabric.tpa.chunk.ChunkPreloader;
+import com.thatmg393.tpa4fabric.tpa.display.CountdownDisplay;
+import com.thatmg393.tpa4fabric.tpa.request.callback.enums.TPAFailReason;
+import com.thatmg393.tpa4fabric.tpa.watcher.MovementWatcher;
+import com.thatmg393.tpa4fabric.tpa.wrapper.TPAPlayerWrapper;
+import com.thatmg393.tpa4fabric.tpa.wrapper.models.TeleportParameters;
+import com.thatmg393.tpa4fabric.utils.CountdownTimer;
+import com.thatmg393.tpa4fabric.utils.scheduler.TickScheduler;
+
+/**
+ * The countdown before a {@code /home} or {@code /warp} teleport, the same one an accepted request goes through:
+ * the player must not move, get hurt or leave until it runs out, the destination chunk is preloaded meanwhile.
+ * Confined to the server thread.
+ */
+class WaypointWarmup {
+    private final TPAPlayerWrapper player;
+
+    private final CountdownTimer timer;
+    private final ChunkPreloader.Preload preload;
+    private final CountdownDisplay.Countdown countdown;
+    private final MovementWatcher.Watch watch;
+
+    WaypointWarmup(TPAPlayerWrapper player, TeleportParameters destination, Runnable teleport) {
+        this.player = player;
+
+        long warmupSeconds = ModConfigManager.loadOrGetConfig().tpaTeleportTime() + 1;
+        this.timer = new CountdownTimer(new CountdownTimer.TimerCallback() {
+            @Override
+            public void onTick(CountdownTimer myself, long delta) {
+                if (player.isAlive()) return;
+
+                TPAMetrics.WARMUPS_FAILED_GONE.increment();
+                myself.stop();
+            }
+
+            @Override
+            public void onStop(CountdownTimer myself, long remaining) {
+                release();
+            }
+
+            @Override
+            public void onFinished(CountdownTimer myself) {
+                teleport.run();
+
+                // after the teleport, the queue took its own preload of the same chunk by then
+                release();
+            }
+        }, warmupSeconds * 1000, 1000);
+
+        this.preload = ChunkPreloader.getInstance().preload(destination.dimension(), destination.chunkPos());
+        this.countdown = CountdownDisplay.getInstance().show(List.of(player), TickScheduler.secondsToTicks(warmupSeconds));
+        this.watch = MovementWatcher.getInstance().watch(player, trigger -> {
+            if (!timer.isRunning()) return;
+
+            boolean hurt = trigger == MovementWatcher.Trigger.DAMAGED;
+            (hurt ? TPAMetrics.WARMUPS_FAILED_HURT : TPAMetrics.WARMUPS_FAILED_MOVED).increment();
+
+            timer.stop();
+            player.onTPAFail(hurt ? TPAFailReason.YOU_WERE_HURT : TPAFailReason.YOU_MOVED);
+        });
+    }
+
+    void start() {
+        timer.start();
+    }
+
+    /**
+     * Stops this warmup without notifying anyone.
+     */
+    void cancel() {
+        timer.stop();
+    }
+
+    private void release() {
+        watch.cancel();
+        countdown.remove();
+        preload.release();
+        WaypointManager.getInstance().endWarmup(player.uuid, this);
+    }
+}
@@ -1,16 +1,28 @@
 package com.thatmg393.tpa4fabric.tpa.wrapper;
 
 import static com.thatmg393.tpa4fabric.utils.MCTextUtils.fromLang;
+import static com.thatmg393.tpa4fabric.utils.MCTextUtils.prefixed;
 
-import java.time.Duration;
-import java.time.Instant;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.LinkedHashMap;
-import java.util.Optional;
+import java.util.List;
+import java.util.UUID;
 
 import com.thatmg393.tpa4fabric.TPA4Fabric;
+import com.thatmg393.tpa4fabric.audit.AuditJournal;
+import com.thatmg393.tpa4fabric.audit.AuditOutcome;
+import com.thatmg393.tpa4fabric.audit.AuditType;
 import com.thatmg393.tpa4fabric.config.ModConfigManager;
+import com.thatmg393.tpa4fabric.config.data.ModConfigData;
+import com.thatmg393.tpa4fabric.metrics.TPAMetrics;
+import com.thatmg393.tpa4fabric.tpa.teleport.TeleportExecutor;
+import com.thatmg393.tpa4fabric.persistence.PlayerPreferenceStore;
+import com.thatmg393.tpa4fabric.persistence.PlayerPreferences;
+import com.thatmg393.tpa4fabric.tpa.cooldown.CooldownType;
+import com.thatmg393.tpa4fabric.tpa.cooldown.TokenBucket;
+import com.thatmg393.tpa4fabric.tpa.history.LocationHistory;
+import com.thatmg393.tpa4fabric.tpa.registry.TargetNameCache;
+import com.thatmg393.tpa4fabric.tpa.request.RequestIndex;
 import com.thatmg393.tpa4fabric.tpa.request.TPAHereRequest;
 import com.thatmg393.tpa4fabric.tpa.request.TPARequest;
 import com.thatmg393.tpa4fabric.tpa.request.base.BaseRequest;
@@ -20,16 +32,16 @@ import com.thatmg393.tpa4fabric.tpa.request.type.RequestType;
 import com.thatmg393.tpa4fabric.tpa.wrapper.models.Coordinates;
 import com.thatmg393.tpa4fabric.tpa.wrapper.models.TeleportParameters;
 import com.thatmg393.tpa4fabric.tpa.wrapper.result.CommandResult;
-import com.thatmg393.tpa4fabric.tpa.wrapper.result.CommandResultWrapper;
+import com.thatmg393.tpa4fabric.utils.scheduler.TickScheduler;
 
-import it.unimi.dsi.fastutil.Pair;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.boss.ServerBossBar;
 import net.minecraft.network.packet.s2c.play.PositionFlag;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ChunkTicketType;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
-import net.minecraft.util.Formatting;
 import net.minecraft.util.math.ChunkPos;
 
 public class TPAPlayerWrapper implements TPAStateCallback {
@@ -37,160 +49,348 @@ public class TPAPlayerWrapper implements TPAStateCallback {
     
     public TPAPlayerWrapper(ServerPlayerEntity player) {
         this.name = player.getNameForScoreboard();
-        this.uuid = player.getUuidAsString();
+        this.uuid = player.getUuid();
         this.player = player;
+        this.alive = player.isAlive();
+        for (int i = 0; i < cooldowns.length; i++) cooldowns[i] = new TokenBucket();
+        this.history = new LocationHistory(uuid, ModConfigManager.loadOrGetConfig().tpaBackHistorySize());
+        this.preferences = PlayerPreferenceStore.getInstance().acquire(uuid, player.getServer(), this::applyStoredPreferences);
+    }
+
+    /**
+     * A player without a real one behind it, for benchmarks. Its preferences are never stored and its history,
+     * never being loaded, never written. Anything that reaches the player itself has to be overridden.
+     */
+    protected TPAPlayerWrapper(String name, UUID uuid) {
+        this.name = name;
+        this.uuid = uuid;
+        this.player = null;
+        this.alive = true;
+        for (int i = 0; i < cooldowns.length; i++) cooldowns[i] = new TokenBucket();
+        this.history = new LocationHistory(uuid, ModConfigManager.loadOrGetConfig().tpaBackHistorySize());
+        this.preferences = new PlayerPreferences(ModConfigManager.loadOrGetConfig().defaultAllowTPARequests());
     }
 
     public final String name;
-    public final String uuid;
+    public final UUID uuid;
 
     private ServerPlayerEntity player;
-    private Instant lastCommandInvokeTime = null;
-    private TeleportParameters lastTPALocation = null;
-    private ChunkPos lastTPALocationChunkPos = null;
-
-    private boolean allowTPARequests = ModConfigManager.loadOrGetConfig().defaultAllowTPARequests;
-
-    private LinkedHashMap<String, BaseRequest> incomingTPARequests = new LinkedHashMap<>(ModConfigManager.loadOrGetConfig().tpaRequestLimit);
-
-    public CommandResultWrapper<?> createNewTPARequest(RequestType type, TPAPlayerWrapper target) {
-        // target -> player to teleport to
+    private boolean connected = true;
+    private boolean alive;
+    private final TokenBucket[] cooldowns = new TokenBucket[CooldownType.VALUES.length];
+    private final LocationHistory history;
+
+    private final PlayerPreferences preferences;
+    private final TargetNameCache tpaTargets = new TargetNameCache();
+
+    /**
+     * @return {@link CommandResult#SUCCESS} if the request was sent, the reason it was not otherwise.
+     *         {@link #getCooldownRemainingTicks} tells how long an {@link CommandResult#ON_COOLDOWN} lasts.
+     */
+    public CommandResult createNewTPARequest(RequestType type, TPAPlayerWrapper target) {
+        return createNewTPARequest(type, target, true);
+    }
 
-        if (target.equals(this)) return CommandResultWrapper.of(CommandResult.TPA_SELF);
-        if (!allowsTPARequests()) return CommandResultWrapper.of(CommandResult.NOT_ALLOWED);
+    /**
+     * Rejections return before anything is allocated, a spammer costs no more than a few lookups.
+     * <p>
+     * Every check is made against the role a player has in the request, not against who this method is called on:
+     * {@link CommandResult#NOT_ALLOWED} means the receiver turned requests off with {@code /tpaallow},
+     * the cooldown belongs to the requester who sent it, and the request lands in the receiver's inbox.
+     * 
+     * @param chargeCooldown Whether to check and consume the requester's cooldown,
+     *        a group summon does that once for all of its requests instead.
+     */
+    public CommandResult createNewTPARequest(RequestType type, TPAPlayerWrapper target, boolean chargeCooldown) {
+        // NORMAL: target -> player that teleports to us, HERE: target -> player that we summon
+        TPAPlayerWrapper requester = type == RequestType.HERE ? this : target;
+        TPAPlayerWrapper receiver = type == RequestType.HERE ? target : this;
+
+        if (target.equals(this)) return CommandResult.TPA_SELF;
+        if (!receiver.allowsTPARequests()) return CommandResult.NOT_ALLOWED;
         
-        Pair<Boolean, Optional<Long>> result = target.isOnCommandCooldown();
-        if (result.first()) return CommandResultWrapper.of(CommandResult.ON_COOLDOWN, result.second().get());
+        CooldownType cooldownType = type.cooldownType();
+        if (chargeCooldown && requester.getCooldownRemainingTicks(cooldownType) > 0) return CommandResult.ON_COOLDOWN;
         
-        if (hasExistingTPARequest(target.uuid)) return CommandResultWrapper.of(CommandResult.HAS_EXISTING);
+        if (receiver.hasExistingTPARequest(requester.uuid)) return CommandResult.HAS_EXISTING;
+        if (!RequestIndex.getInstance().makeRoom(receiver, requester)) return CommandResult.INBOX_FULL;
         
-        target.markInCooldown();
+        if (chargeCooldown) requester.consumeCooldown(cooldownType);
 
         BaseRequest request = null;
 
         switch (type) {
             case NORMAL:
-                request = new TPARequest(target, this);
+                request = new TPARequest(requester, receiver);
             break;
             
             case HERE:
-                request = new TPAHereRequest(this, target);
+                request = new TPAHereRequest(requester, receiver);
             break;
         }
 
-        incomingTPARequests.put(target.uuid, request);
+        RequestIndex.getInstance().add(request);
 
-        return CommandResultWrapper.of(CommandResult.SUCCESS);
+        return CommandResult.SUCCESS;
     }
 
-    public CommandResultWrapper<?> acceptTPARequest(TPAPlayerWrapper from) {
-        if (isIncomingTPARequestEmpty()) return CommandResultWrapper.of(CommandResult.EMPTY_REQUESTS);
+    /**
+     * Checks whether {@link #acceptTPARequest} or {@link #denyTPARequest} can take the request from {@code from}.
+     * 
+     * @param from The requester, {@code null} for the oldest request.
+     * @return {@link CommandResult#SUCCESS} if there is one, the reason there is not otherwise.
+     */
+    public CommandResult checkIncomingTPARequest(TPAPlayerWrapper from) {
+        if (isIncomingTPARequestEmpty()) return CommandResult.EMPTY_REQUESTS;
+        if (from == null) return CommandResult.SUCCESS;
 
-        if (from == null) {
-            String targetUuid = incomingTPARequests.keySet().iterator().next();
-            incomingTPARequests.remove(targetUuid).accept();
-            
-            return CommandResultWrapper.of(CommandResult.SUCCESS, targetUuid);
-        }
+        if (from.equals(this)) return CommandResult.TPA_SELF;
+        if (!hasExistingTPARequest(from.uuid)) return CommandResult.NO_REQUEST;
 
-        if (from.equals(this)) return CommandResultWrapper.of(CommandResult.TPA_SELF);
-        if (!hasExistingTPARequest(from.uuid)) return CommandResultWrapper.of(CommandResult.NO_REQUEST);
+        return CommandResult.SUCCESS;
+    }
 
-        incomingTPARequests.remove(from.uuid).accept();
-        
-        return CommandResultWrapper.of(CommandResult.SUCCESS);
+    /**
+     * Accepts the request from {@code from}, check {@link #checkIncomingTPARequest} first.
+     * 
+     * @return The accepted request.
+     */
+    public BaseRequest acceptTPARequest(TPAPlayerWrapper from) {
+        BaseRequest request = findIncomingTPARequest(from);
+        request.accept();
+
+        return request;
     }
 
-    public CommandResultWrapper<?> denyTPARequest(TPAPlayerWrapper from) {
-        if (isIncomingTPARequestEmpty()) return CommandResultWrapper.of(CommandResult.EMPTY_REQUESTS);
+    /**
+     * Accepts every /tpa request in the inbox as one group warmup towards this player.
+     * This player can only be in one place, so /tpahere requests stay pending while there is a group,
+     * without one only the oldest /tpahere request is accepted.
+     * 
+     * @return The accepted requests, empty if there were none.
+     */
+    public List<BaseRequest> acceptAllTPARequests() {
+        ArrayList<BaseRequest> toHere = new ArrayList<>();
+        BaseRequest summon = null;
+
+        for (BaseRequest request : new ArrayList<>(RequestIndex.getInstance().getIncoming(uuid))) {
+            if (request.getDestination() == this) toHere.add(request);
+            else if (summon == null) summon = request;
+        }
 
-        if (from == null) {
-            String targetUuid = incomingTPARequests.keySet().iterator().next();
-            incomingTPARequests.remove(targetUuid).deny();
+        if (!toHere.isEmpty()) return BaseRequest.acceptAll(this, toHere);
+        if (summon != null && summon.accept()) return List.of(summon);
 
-            return CommandResultWrapper.of(CommandResult.SUCCESS, targetUuid);
+        return List.of();
+    }
+
+    /**
+     * Denies every request in the inbox.
+     * 
+     * @return The denied requests, empty if there were none.
+     */
+    public List<BaseRequest> denyAllTPARequests() {
+        ArrayList<BaseRequest> denied = new ArrayList<>();
+        for (BaseRequest request : new ArrayList<>(RequestIndex.getInstance().getIncoming(uuid))) {
+            if (request.deny()) denied.add(request);
         }
 
-        if (from.equals(this)) return CommandResultWrapper.of(CommandResult.TPA_SELF);
-        if (!hasExistingTPARequest(from.uuid)) return CommandResultWrapper.of(CommandResult.NO_REQUEST);
+        return denied;
+    }
+
+    /**
+     * Denies the request from {@code from}, check {@link #checkIncomingTPARequest} first.
+     * 
+     * @return The denied request.
+     */
+    public BaseRequest denyTPARequest(TPAPlayerWrapper from) {
+        BaseRequest request = findIncomingTPARequest(from);
+        request.deny();
 
-        incomingTPARequests.remove(from.uuid).deny();
-        
-        return CommandResultWrapper.of(CommandResult.SUCCESS);
+        return request;
     }
 
-    public Optional<CommandResult> goBackToLastCoordinates() {
-        if (lastTPALocation == null) return Optional.of(CommandResult.NO_PREVIOUS_COORDS);
+    private BaseRequest findIncomingTPARequest(TPAPlayerWrapper from) {
+        return from == null
+            ? RequestIndex.getInstance().getOldestIncoming(uuid)
+            : RequestIndex.getInstance().get(uuid, from.uuid);
+    }
 
-        /* TODO:
-         * 1. Make an abstract(?) Request class /
-         * 2. Make TPABackRequest and extend Request (will also be useful for /tpahere) X
-         * 3. magic. X
-         */
-        lastTPALocationChunkPos = player.getServerWorld().getChunk((int) lastTPALocation.coordinates().x(), (int) lastTPALocation.coordinates().y()).getPos();
-        teleport(lastTPALocation);
+    public CommandResult goBackToLastCoordinates() {
+        if (getCooldownRemainingTicks(CooldownType.TPABACK) > 0) return CommandResult.ON_COOLDOWN;
 
-        if (ModConfigManager.loadOrGetConfig().oneTimeTPABack)
-            lastTPALocation = null; // consume
+        boolean consume = ModConfigManager.loadOrGetConfig().oneTimeTPABack();
+        TeleportParameters destination = history.peek(player.getServer());
+        if (destination == null) {
+            if (consume) history.pop(player.getServer()); // its dimension is gone, don't get stuck on it
+            return CommandResult.NO_PREVIOUS_COORDS;
+        }
+        consumeCooldown(CooldownType.TPABACK);
+
+        // only consumed once the teleport happened, a dropped one keeps the entry
+        long entry = history.newestTimestamp();
+
+        // the previous location is most likely unloaded by now, the queue waits for it to load in the background
+        teleport(destination, () -> {
+            if (consume) history.removeNewest(entry);
+            TPAMetrics.TELEPORTS_BACK.increment();
+            AuditJournal.getInstance().record(
+                AuditType.TPABACK, AuditOutcome.TELEPORTED, this, null,
+                destination.dimension().getRegistryKey(), destination.coordinates().x(), destination.coordinates().y(), destination.coordinates().z()
+            );
+            sendMessage(fromLang("tpa4fabric.message.tpa.back"));
+        });
         
-        return Optional.of(CommandResult.SUCCESS);
+        return CommandResult.SUCCESS;
     }
 
-    public void removeTPARequest(String requesterUuid) {
-        incomingTPARequests.remove(requesterUuid);
+    public void removeTPARequest(UUID requesterUuid) {
+        RequestIndex.getInstance().remove(uuid, requesterUuid);
     }
 
-    public boolean hasExistingTPARequest(String requesterUuid) {
-        return incomingTPARequests.containsKey(requesterUuid);
+    public boolean hasExistingTPARequest(UUID requesterUuid) {
+        return RequestIndex.getInstance().get(uuid, requesterUuid) != null;
     }
 
     public boolean isIncomingTPARequestEmpty() {
-        return incomingTPARequests.isEmpty();
+        return !RequestIndex.getInstance().hasIncoming(uuid);
     }
 
     public void setAllowTPARequest(boolean newValue) {
-        this.allowTPARequests = newValue;
+        preferences.setAllowTPARequests(newValue);
+        PlayerPreferenceStore.getInstance().markDirty(uuid);
     }
 
     public boolean allowsTPARequests() {
-        return this.allowTPARequests;
+        return preferences.allowTPARequests;
     }
 
-    public void markInCooldown() {
-        if (lastCommandInvokeTime != null)
-            TPA4Fabric.LOGGER.warn("Cannot mark " + name + " in cooldown while they are still on cooldown.");
-        
-        lastCommandInvokeTime = Instant.now();
+    /**
+     * The names this player can {@code /tpa} to, cached until someone joins or leaves.
+     */
+    public TargetNameCache getTPATargets() {
+        return tpaTargets;
+    }
+
+    /**
+     * @return Ticks until {@code type} can be used again, 0 if it can be used right now.
+     */
+    public long getCooldownRemainingTicks(CooldownType type) {
+        ModConfigData config = ModConfigManager.loadOrGetConfig();
+        return cooldowns[type.ordinal()].getRemainingTicks(
+            TickScheduler.getInstance().getCurrentTick(),
+            type.getBurst(config),
+            TickScheduler.secondsToTicks(type.getRefillSeconds(config))
+        );
+    }
+
+    /**
+     * Spends one use of {@code type}, check {@link #getCooldownRemainingTicks} first.
+     */
+    public void consumeCooldown(CooldownType type) {
+        ModConfigData config = ModConfigManager.loadOrGetConfig();
+        long now = TickScheduler.getInstance().getCurrentTick();
+
+        TokenBucket bucket = cooldowns[type.ordinal()];
+        if (!bucket.tryConsume(now, type.getBurst(config), TickScheduler.secondsToTicks(type.getRefillSeconds(config))))
+            TPA4Fabric.LOGGER.warn(name + " used " + type + " while on cooldown.");
+
+        preferences.setCooldown(type, bucket.getTokens(), System.currentTimeMillis() - TickScheduler.ticksToMillis(now - bucket.getLastRefillTick()));
+        PlayerPreferenceStore.getInstance().markDirty(uuid);
+    }
+
+    private void applyStoredPreferences(PlayerPreferences stored) {
+        long now = TickScheduler.getInstance().getCurrentTick();
+        long nowMillis = System.currentTimeMillis();
+
+        for (int i = 0; i < cooldowns.length; i++) {
+            // used before the file was read, the bucket is already newer
+            if (stored.cooldownTokens[i] < 0 || stored.isCooldownChanged(i)) continue;
+
+            long elapsedTicks = TickScheduler.millisToTicks(Math.max(0, nowMillis - stored.cooldownLastRefillMillis[i]));
+            cooldowns[i].restore(stored.cooldownTokens[i], now - elapsedTicks);
+        }
     }
 
     public void updatePlayerReference(ServerPlayerEntity newPlayer) {
-        if (!newPlayer.getUuidAsString().equals(uuid)) {
+        if (!newPlayer.getUuid().equals(uuid)) {
             TPA4Fabric.LOGGER.info("Tried to update player reference with an another player");
             return;
         }
         
         player = newPlayer;
+        alive = true;
     }
 
-    public Pair<Boolean, Optional<Long>> isOnCommandCooldown() {
-        if (lastCommandInvokeTime == null) return Pair.of(false, Optional.empty());
+    public void markDead() {
+        alive = false;
 
-        long diff = Duration.between(lastCommandInvokeTime, Instant.now()).getSeconds();
-        if (diff < ModConfigManager.loadOrGetConfig().tpaCooldown)
-            return Pair.of(true, Optional.of(Math.abs(diff - ModConfigManager.loadOrGetConfig().tpaCooldown)));
-        
-        lastCommandInvokeTime = null;
-        return Pair.of(false, Optional.empty());
+        if (ModConfigManager.loadOrGetConfig().tpaBackOnDeath())
+            history.push(LocationHistory.KIND_DEATH, getCurrentDimension().getRegistryKey(), getX(), getY(), getZ());
+    }
+
+    public LocationHistory getHistory() {
+        return history;
+    }
+
+    public void markDisconnected() {
+        connected = false;
     }
 
     public void sendMessage(MutableText message) {
-        player.sendMessage(Text.literal("[TPA4Fabric]: ").formatted(Formatting.BOLD).formatted(Formatting.GOLD).append(message.formatted(Formatting.BOLD)));
+        player.sendMessage(prefixed(message));
     }
 
-    public Coordinates getCurrentCoordinates() {
-        return new Coordinates(
-            player.getX(), player.getY(), player.getZ()
-        );
+    public void sendActionBar(Text message) {
+        player.sendMessage(message, true);
+    }
+
+    public void showBossBar(ServerBossBar bossBar) {
+        bossBar.addPlayer(player);
+    }
+
+    public void hideBossBar(ServerBossBar bossBar) {
+        bossBar.removePlayer(player);
+    }
+
+    /**
+     * Where this player stands right now, as somewhere to teleport to. The result is handed to the
+     * {@link TeleportExecutor} so it has to be a new instance, this is the one allocation a teleport makes for it.
+     */
+    public TeleportParameters getTeleportParameters() {
+        return new TeleportParameters(player.getServerWorld(), new Coordinates(player.getX(), player.getY(), player.getZ()));
+    }
+
+    public double getX() {
+        return player.getX();
+    }
+
+    public double getY() {
+        return player.getY();
+    }
+
+    public double getZ() {
+        return player.getZ();
+    }
+
+    public float getYaw() {
+        return player.getYaw();
+    }
+
+    public float getPitch() {
+        return player.getPitch();
+    }
+
+    public int getPermissionLevel() {
+        return player.getPermissionLevel();
+    }
+
+    public boolean isSamePlayer(Entity entity) {
+        return entity == player;
+    }
+
+    public ChunkPos getChunkPos() {
+        return player.getChunkPos();
     }
 
     public ServerWorld getCurrentDimension() {
@@ -198,38 +398,71 @@ public class TPAPlayerWrapper implements TPAStateCallback {
     }
 
     public boolean isAlive() {
-        return player.isAlive() && !player.isRemoved() && Arrays.asList(player.getServer().getPlayerNames()).parallelStream().filter(n -> n.equals(name)).findFirst().isPresent();
+        // both are kept up to date by TPAManager's connection, death and respawn handlers
+        return connected && alive;
     }
 
-    public void teleport(TeleportParameters params) {
-        player.getServer().executeSync(() -> {
-            player.getServerWorld().getChunkManager().addTicket(
-                AFTER_TELEPORT,
-                lastTPALocationChunkPos,
-                3,
-                lastTPALocationChunkPos
-            );
+    /**
+     * Queues this player to be moved to {@code params} through the {@link TeleportExecutor},
+     * {@code afterTeleport} runs right after the move happened.
+     */
+    public void teleport(TeleportParameters params, Runnable afterTeleport) {
+        teleport(params, afterTeleport, null);
+    }
 
-            player.teleport(
-                params.dimension(),
-                params.coordinates().x(),
-                params.coordinates().y(),
-                params.coordinates().z(),
-                PositionFlag.combine(PositionFlag.DELTA, PositionFlag.ROT),
-                player.getYaw(),
-                player.getPitch(),
-                false
-            );
-        });
+    /**
+     * Like {@link #teleport(TeleportParameters, Runnable)}, {@code onFailed} runs instead of {@code afterTeleport}
+     * if the teleport was dropped or did not go through.
+     */
+    public void teleport(TeleportParameters params, Runnable afterTeleport, Runnable onFailed) {
+        TeleportExecutor.getInstance().submit(this, params, afterTeleport, onFailed);
+    }
+
+    /**
+     * Moves this player right away, only meant for the {@link TeleportExecutor}.
+     */
+    public void teleportNow(TeleportParameters params) {
+        ChunkPos destinationChunkPos = params.chunkPos();
+        params.dimension().getChunkManager().addTicket(
+            AFTER_TELEPORT,
+            destinationChunkPos,
+            3,
+            destinationChunkPos
+        );
+
+        player.teleport(
+            params.dimension(),
+            params.coordinates().x(),
+            params.coordinates().y(),
+            params.coordinates().z(),
+            PositionFlag.combine(PositionFlag.DELTA, PositionFlag.ROT),
+            player.getYaw(),
+            player.getPitch(),
+            false
+        );
     }
 
     @Override
     public boolean beforeTeleport(TeleportParameters params) {
-        this.lastTPALocation = new TeleportParameters(getCurrentDimension(), getCurrentCoordinates());
-        this.lastTPALocationChunkPos = player.getChunkPos();
         return allowsTPARequests();
     }
 
+    /**
+     * Pushes where this player stands right now to the history, so {@code /tpaback} can return here.
+     * 
+     * @return What to hand to {@link #forgetLocation} if the teleport does not happen after all.
+     */
+    public long rememberCurrentLocation() {
+        return history.push(LocationHistory.KIND_TELEPORT, getCurrentDimension().getRegistryKey(), getX(), getY(), getZ());
+    }
+
+    /**
+     * Takes back what {@link #rememberCurrentLocation} pushed, unless something else was pushed since.
+     */
+    public void forgetLocation(long remembered) {
+        history.removeNewest(remembered);
+    }
+
     @Override
     public void onTPASuccess(TeleportParameters params) {
         sendMessage(fromLang("tpa4fabric.message.teleport.success"));
@@ -253,6 +486,14 @@ public class TPAPlayerWrapper implements TPAStateCallback {
             case REQUESTER_DEAD_OR_DISCONNECTED:
                 sendMessage(fromLang("tpa4fabric.message.fail.requester_dead_or_disconnected"));
             break;
+
+            case YOU_WERE_HURT:
+                sendMessage(fromLang("tpa4fabric.message.fail.requester.hurt"));
+            break;
+
+            case REQUESTER_WAS_HURT:
+                sendMessage(fromLang("tpa4fabric.message.fail.receiver.requester_hurt"));
+            break;
         }
     }
 }
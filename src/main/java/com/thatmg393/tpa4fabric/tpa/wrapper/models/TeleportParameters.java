@@ -1,7 +1,13 @@
 package com.thatmg393.tpa4fabric.tpa.wrapper.models;
 
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
 
 public record TeleportParameters(
     ServerWorld dimension, Coordinates coordinates
-) { }
\ No newline at end of file
+) {
+    public ChunkPos chunkPos() {
+        return new ChunkPos(MathHelper.floor(coordinates.x()) >> 4, MathHelper.floor(coordinates.z()) >> 4);
+    }
+}
@@ -7,6 +7,7 @@ public enum CommandResult {
     ON_COOLDOWN,
 
     HAS_EXISTING,
+    INBOX_FULL,
     NO_REQUEST,
     EMPTY_REQUESTS,
 
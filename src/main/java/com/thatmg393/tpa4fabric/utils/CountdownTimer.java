@@ -1,17 +1,17 @@
 package com.thatmg393.tpa4fabric.utils;
 
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.atomic.AtomicBoolean;
+import com.thatmg393.tpa4fabric.utils.scheduler.ScheduledTask;
+import com.thatmg393.tpa4fabric.utils.scheduler.TickScheduler;
 
 /**
  * CountdownTimer class manages a countdown timer that triggers a callback on each tick and when the timer finishes.
+ * It is driven by the {@link TickScheduler}, so every callback runs on the server thread.
  */
-public class CountdownTimer extends TimerTask {
-    private final Timer scheduler = new Timer("CountdownTimer");
-    private final AtomicBoolean running = new AtomicBoolean();
+public class CountdownTimer {
     private final TimerCallback callback;
 
+    private ScheduledTask task = null;
+
     private long now = 0;
     private long remaining;
 
@@ -48,9 +48,9 @@ public class CountdownTimer extends TimerTask {
     }
 
     /** 
-     * Starts the countdown timer. It schedules a task to run at fixed intervals based on the tick rate.
+     * Starts the countdown timer. It schedules a repeating task on the {@link TickScheduler} based on the tick rate.
      */
-    public synchronized void start() {
+    public void start() {
         if (isRunning()) return;
         if (remaining <= 0 || tickRate >= remaining) {
             internalStop();
@@ -59,14 +59,16 @@ public class CountdownTimer extends TimerTask {
             return;
         }
 
-        this.running.set(true);
-        scheduler.scheduleAtFixedRate(this, 0, tickRate);
+        long periodTicks = TickScheduler.millisToTicks(tickRate);
+        task = TickScheduler.getInstance().scheduleRepeating(periodTicks, periodTicks, this::run);
     }
 
     /** 
      * Stops the countdown timer and triggers the callback to notify that the timer was stopped early.
      */
-    public synchronized void stop() {
+    public void stop() {
+        if (!isRunning()) return;
+
         internalStop();
         callback.onStop(this, remaining);
 
@@ -80,23 +82,21 @@ public class CountdownTimer extends TimerTask {
      * @return true if the timer is running, false otherwise.
      */
     public boolean isRunning() {
-        return this.running.get();
+        return task != null;
     }
 
     /**
-     * Internal method to stop the timer without triggering the stop callback. It cancels the scheduler.
+     * Internal method to stop the timer without triggering the stop callback. It cancels the scheduled task.
      */
-    private synchronized void internalStop() {
-        this.running.set(false);
-        this.cancel();
-        scheduler.cancel();
+    private void internalStop() {
+        if (task != null) task.cancel();
+        task = null;
     }
 
     /*
      * Main logic/implementation of this class 
      */
-    @Override
-    public void run() {
+    private void run() {
         now += tickRate;
         remaining -= tickRate;
         
@@ -1,11 +1,20 @@
 package com.thatmg393.tpa4fabric.utils;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
 import org.slf4j.helpers.MessageFormatter;
 
 import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
 
 public class MCTextUtils {
+    /** Never append to this directly, copy it first. */
+    public static final Text PREFIX = Text.literal("[TPA4Fabric]: ").formatted(Formatting.BOLD, Formatting.GOLD);
+
+    private static final ConcurrentHashMap<String, MessageTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
     public static MutableText textOf(String s) {
         return Text.literal(s);
     }
@@ -15,7 +24,7 @@ public class MCTextUtils {
     }
 
     public static MutableText fromLang(String key) {
-        return textOf(fromLangAsStr(key));
+        return template(key).format();
     }
 
     public static String fromLangAsStr(String key) {
@@ -23,6 +32,30 @@ public class MCTextUtils {
     }
 
     public static MutableText fromLang(String key, Object... formats) {
-        return textOf(fromLangAsStr(key), formats);
+        return template(key).format(formats);
+    }
+
+    public static MessageTemplate template(String key) {
+        return TEMPLATES.computeIfAbsent(key, MessageTemplate::compile);
+    }
+
+    /**
+     * @return The names of {@code items} separated by commas, for batched messages.
+     */
+    public static <T> String joinNames(Iterable<T> items, Function<T, String> name) {
+        StringBuilder builder = new StringBuilder();
+        for (T item : items) {
+            if (builder.length() > 0) builder.append(", ");
+            builder.append(name.apply(item));
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * @return {@code message} behind the shared, styled {@link #PREFIX}. The message inherits its style.
+     */
+    public static MutableText prefixed(Text message) {
+        return PREFIX.copy().append(message);
     }
 }
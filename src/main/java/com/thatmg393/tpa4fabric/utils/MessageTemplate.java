@@ -0,0 +1,70 @@
+package com.thatmg393.tpa4fabric.utils;
+
+import java.util.ArrayList;
+
+import com.thatmg393.tpa4fabric.config.ModConfigManager;
+
+import net.minecraft.text.MutableText;
+import net.minecraft.text.Text;
+
+/**
+ * A lang entry parsed once into its literal pieces, with {@code {}} as the argument placeholder.
+ * Formatting only concatenates, it never scans the template again.
+ */
+public class MessageTemplate {
+    private static final String PLACEHOLDER = "{}";
+
+    private final String key;
+    private final String[] segments;
+    private final String fallbackFormat;
+    private final Text constantText;
+
+    MessageTemplate(String key, String template) {
+        this.key = key;
+
+        ArrayList<String> parts = new ArrayList<>();
+        int from = 0, at;
+        while ((at = template.indexOf(PLACEHOLDER, from)) != -1) {
+            parts.add(template.substring(from, at));
+            from = at + PLACEHOLDER.length();
+        }
+        parts.add(template.substring(from));
+
+        this.segments = parts.toArray(String[]::new);
+        // same thing in the format clients understand, used when they lack the translation
+        this.fallbackFormat = String.join("%s", parts.stream().map(p -> p.replace("%", "%%")).toList());
+        this.constantText = segments.length == 1 ? Text.literal(template) : null;
+    }
+
+    public static MessageTemplate compile(String key) {
+        return new MessageTemplate(key, MCTextUtils.fromLangAsStr(key));
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getArgumentCount() {
+        return segments.length - 1;
+    }
+
+    public MutableText format(Object... args) {
+        return format(ModConfigManager.loadOrGetConfig().clientSideTranslation(), args);
+    }
+
+    MutableText format(boolean clientSideTranslation, Object... args) {
+        if (clientSideTranslation)
+            return Text.translatableWithFallback(key, fallbackFormat, args);
+
+        if (constantText != null) return constantText.copy();
+
+        StringBuilder builder = new StringBuilder(64);
+        builder.append(segments[0]);
+        for (int i = 1; i < segments.length; i++) {
+            builder.append(i - 1 < args.length ? String.valueOf(args[i - 1]) : PLACEHOLDER);
+            builder.append(segments[i]);
+        }
+
+        return Text.literal(builder.toString());
+    }
+}
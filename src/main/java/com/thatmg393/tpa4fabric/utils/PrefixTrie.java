@@ -0,0 +1,135 @@
+package com.thatmg393.tpa4fabric.utils;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A set of strings that can list everything starting with a prefix in alphabetical order,
+ * only visiting the part of the tree below that prefix. Backs tab completion of big name lists.
+ * <p>
+ * Children are kept in sorted arrays instead of maps, most nodes have one or two of them.
+ * Not thread safe.
+ */
+public class PrefixTrie {
+    private static final char[] NO_CHARS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    private final Node root = new Node();
+    private int size = 0;
+
+    /**
+     * @return Whether {@code key} was not in here yet.
+     */
+    public boolean add(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) node = node.getOrAddChild(key.charAt(i));
+
+        if (node.key != null) return false;
+
+        node.key = key;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return Whether {@code key} was in here.
+     */
+    public boolean remove(String key) {
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].getChild(key.charAt(i));
+            if (path[i + 1] == null) return false;
+        }
+
+        Node node = path[key.length()];
+        if (node.key == null) return false;
+
+        node.key = null;
+        size--;
+
+        // prune the branch that only led to the removed key
+        for (int i = key.length(); i > 0 && path[i].key == null && path[i].childCount == 0; i--) path[i - 1].removeChild(key.charAt(i - 1));
+        return true;
+    }
+
+    public boolean contains(String key) {
+        Node node = find(key);
+        return node != null && node.key != null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Hands up to {@code limit} keys starting with {@code prefix} to {@code out}, in alphabetical order.
+     */
+    public void collect(String prefix, int limit, Consumer<String> out) {
+        Node node = find(prefix);
+        if (node != null && limit > 0) collect(node, new int[] { limit }, out);
+    }
+
+    private static void collect(Node node, int[] remaining, Consumer<String> out) {
+        if (node.key != null) {
+            out.accept(node.key);
+            if (--remaining[0] == 0) return;
+        }
+
+        for (int i = 0; i < node.childCount; i++) {
+            collect(node.children[i], remaining, out);
+            if (remaining[0] == 0) return;
+        }
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) node = node.getChild(prefix.charAt(i));
+
+        return node;
+    }
+
+    private static class Node {
+        private char[] chars = NO_CHARS;
+        private Node[] children = NO_NODES;
+        private int childCount = 0;
+        private String key = null; // set if a key ends here
+
+        Node getChild(char c) {
+            int index = Arrays.binarySearch(chars, 0, childCount, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node getOrAddChild(char c) {
+            int index = Arrays.binarySearch(chars, 0, childCount, c);
+            if (index >= 0) return children[index];
+
+            index = -index - 1;
+            if (childCount == chars.length) {
+                int capacity = Math.max(2, childCount * 2);
+                chars = Arrays.copyOf(chars, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+
+            System.arraycopy(chars, index, chars, index + 1, childCount - index);
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+
+            Node child = new Node();
+            chars[index] = c;
+            children[index] = child;
+            childCount++;
+
+            return child;
+        }
+
+        void removeChild(char c) {
+            int index = Arrays.binarySearch(chars, 0, childCount, c);
+            if (index < 0) return;
+
+            System.arraycopy(chars, index + 1, chars, index, childCount - index - 1);
+            System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+            children[--childCount] = null;
+        }
+    }
+}
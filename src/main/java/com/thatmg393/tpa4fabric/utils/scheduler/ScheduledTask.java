@@ -0,0 +1,67 @@
+package com.thatmg393.tpa4fabric.utils.scheduler;
+
+/**
+ * A handle to a task queued in the {@link TickScheduler}.
+ * Doubles as the node of the intrusive list that makes up a wheel slot, so inserting and cancelling never allocate.
+ */
+public class ScheduledTask {
+    final TickScheduler owner;
+    final Runnable action;
+    final long period;
+
+    long deadline;
+    boolean cancelled;
+
+    ScheduledTask prev;
+    ScheduledTask next;
+
+    ScheduledTask(TickScheduler owner, Runnable action, long period) {
+        this.owner = owner;
+        this.action = action;
+        this.period = period;
+    }
+
+    static ScheduledTask sentinel() {
+        ScheduledTask sentinel = new ScheduledTask(null, null, 0);
+        sentinel.prev = sentinel;
+        sentinel.next = sentinel;
+
+        return sentinel;
+    }
+
+    /**
+     * Cancels this task. Does nothing if it already ran (one-shot) or was already cancelled.
+     */
+    public void cancel() {
+        owner.cancel(this);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return The amount of ticks left before this task runs next.
+     */
+    public long getRemainingTicks() {
+        return Math.max(0, deadline - owner.getCurrentTick());
+    }
+
+    boolean isLinked() {
+        return next != null;
+    }
+
+    void linkBefore(ScheduledTask sentinel) {
+        prev = sentinel.prev;
+        next = sentinel;
+        sentinel.prev.next = this;
+        sentinel.prev = this;
+    }
+
+    void unlink() {
+        prev.next = next;
+        next.prev = prev;
+        prev = null;
+        next = null;
+    }
+}
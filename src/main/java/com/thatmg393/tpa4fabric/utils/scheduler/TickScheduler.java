@@ -0,0 +1,199 @@
+package com.thatmg393.tpa4fabric.utils.scheduler;
+
+import com.thatmg393.tpa4fabric.TPA4Fabric;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+
+/**
+ * A hierarchical timing wheel advanced once per server tick.
+ * <p>
+ * Every level has 64 slots, each slot on level {@code n} spanning {@code 64^n} ticks, so four levels
+ * cover a bit over 9 days; anything further away sits in an overflow list that is re-sorted once per revolution.
+ * Scheduling and cancelling are O(1) and every task runs on the server thread.
+ * <p>
+ * This class is confined to the server thread, do NOT schedule or cancel from anywhere else.
+ */
+public class TickScheduler {
+    private static final TickScheduler INSTANCE = new TickScheduler();
+
+    public static TickScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    public static final int TICKS_PER_SECOND = 20;
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final ScheduledTask[][] wheel = new ScheduledTask[LEVELS][SLOTS];
+    private final ScheduledTask overflow = ScheduledTask.sentinel();
+
+    private long currentTick = 0;
+    private int pendingTasks = 0;
+
+    private TickScheduler() {
+        this(true);
+    }
+
+    /**
+     * @param hooked Whether the server's ticks advance it, one that is not only moves through {@link #advance()}.
+     */
+    TickScheduler(boolean hooked) {
+        for (ScheduledTask[] level : wheel) {
+            for (int i = 0; i < SLOTS; i++) level[i] = ScheduledTask.sentinel();
+        }
+
+        if (!hooked) return;
+        ServerTickEvents.END_SERVER_TICK.register(server -> advance());
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> drain());
+    }
+
+    public static long secondsToTicks(long seconds) {
+        return seconds * TICKS_PER_SECOND;
+    }
+
+    public static long millisToTicks(long millis) {
+        return Math.max(1, millis / (1000 / TICKS_PER_SECOND));
+    }
+
+    public static long ticksToMillis(long ticks) {
+        return ticks * (1000 / TICKS_PER_SECOND);
+    }
+
+    public static long ticksToSecondsCeil(long ticks) {
+        return (ticks + TICKS_PER_SECOND - 1) / TICKS_PER_SECOND;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public int getPendingTaskCount() {
+        return pendingTasks;
+    }
+
+    /**
+     * Runs {@code action} once after {@code delayTicks} ticks (at least one).
+     */
+    public ScheduledTask schedule(long delayTicks, Runnable action) {
+        return scheduleRepeating(delayTicks, 0, action);
+    }
+
+    /**
+     * Runs {@code action} after {@code delayTicks} ticks, then every {@code periodTicks} until cancelled.
+     * A period of 0 makes it a one-shot task.
+     */
+    public ScheduledTask scheduleRepeating(long delayTicks, long periodTicks, Runnable action) {
+        ScheduledTask task = new ScheduledTask(this, action, periodTicks);
+        task.deadline = currentTick + Math.max(1, delayTicks);
+
+        insert(task);
+        pendingTasks++;
+
+        return task;
+    }
+
+    public void cancel(ScheduledTask task) {
+        if (task.cancelled) return;
+        task.cancelled = true;
+
+        // if it is not linked it's either currently running or already done, run() accounts for it
+        if (task.isLinked()) {
+            task.unlink();
+            pendingTasks--;
+        }
+    }
+
+    private void insert(ScheduledTask task) {
+        long deadline = task.deadline;
+
+        if ((deadline >>> (SLOT_BITS * LEVELS)) != (currentTick >>> (SLOT_BITS * LEVELS))) {
+            task.linkBefore(overflow);
+            return;
+        }
+
+        int level = 0;
+        while ((deadline >>> (SLOT_BITS * (level + 1))) != (currentTick >>> (SLOT_BITS * (level + 1)))) level++;
+
+        task.linkBefore(wheel[level][(int) (deadline >>> (SLOT_BITS * level)) & SLOT_MASK]);
+    }
+
+    /**
+     * Moves to the next tick and runs everything due on it.
+     */
+    void advance() {
+        long tick = ++currentTick;
+
+        if ((tick & ((1L << (SLOT_BITS * LEVELS)) - 1)) == 0) cascade(overflow);
+
+        // higher levels first, they may refill the lower slot that is cascaded right after
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((tick & ((1L << (SLOT_BITS * level)) - 1)) == 0)
+                cascade(wheel[level][(int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK]);
+        }
+
+        // nothing can be inserted into the current slot while it runs since every deadline is > currentTick
+        ScheduledTask slot = wheel[0][(int) tick & SLOT_MASK];
+        ScheduledTask task;
+        while ((task = slot.next) != slot) {
+            task.unlink();
+            run(task);
+        }
+    }
+
+    private void cascade(ScheduledTask sentinel) {
+        if (sentinel.next == sentinel) return;
+
+        ScheduledTask task = sentinel.next;
+        sentinel.prev.next = null;
+        sentinel.prev = sentinel;
+        sentinel.next = sentinel;
+
+        while (task != null) {
+            ScheduledTask next = task.next;
+            task.prev = null;
+            task.next = null;
+
+            insert(task);
+            task = next;
+        }
+    }
+
+    private void run(ScheduledTask task) {
+        try {
+            task.action.run();
+        } catch (Exception e) {
+            TPA4Fabric.LOGGER.error("A scheduled task threw an exception! " + e.toString());
+        }
+
+        if (task.period > 0 && !task.cancelled) {
+            task.deadline += task.period;
+            insert(task);
+        } else {
+            task.cancelled = true;
+            pendingTasks--;
+        }
+    }
+
+    private void drain() {
+        TPA4Fabric.LOGGER.info("Server is stopping, dropping " + pendingTasks + " scheduled task(s)...");
+
+        for (ScheduledTask[] level : wheel) {
+            for (ScheduledTask slot : level) clear(slot);
+        }
+        clear(overflow);
+
+        pendingTasks = 0;
+    }
+
+    private void clear(ScheduledTask sentinel) {
+        ScheduledTask task;
+        while ((task = sentinel.next) != sentinel) {
+            task.unlink();
+            task.cancelled = true;
+        }
+    }
+}